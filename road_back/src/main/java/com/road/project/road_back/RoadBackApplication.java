@@ -2,8 +2,10 @@ package com.road.project.road_back;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RoadBackApplication {
 
     public static void main(String[] args) {
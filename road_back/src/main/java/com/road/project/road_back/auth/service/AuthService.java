@@ -6,7 +6,10 @@ import com.road.project.road_back.auth.entity.Session;
 import com.road.project.road_back.auth.entity.User;
 import com.road.project.road_back.auth.repository.SessionRepository;
 import com.road.project.road_back.auth.repository.UserRepository;
+import com.road.project.road_back.config.CustomUserDetailsService;
 import com.road.project.road_back.config.JwtTokenProvider;
+import com.road.project.road_back.config.VerifiedTokenCache;
+import com.road.project.road_back.signalement.service.SignalementListCache;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +24,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -39,6 +43,9 @@ public class AuthService {
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
     private final FirebaseUserService firebaseUserService;
+    private final CustomUserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SignalementListCache signalementListCache;
 
     @Value("${app.session.max-attempts:3}")
     private int maxAttempts;
@@ -177,9 +184,12 @@ public class AuthService {
         Optional<User> existingUser = userRepository.findByEmail(fbData.getEmail());
 
         User user;
+        boolean auteurModifie = false;
         if (existingUser.isPresent()) {
             // Mettre à jour l'utilisateur existant avec les données Firebase
             user = existingUser.get();
+            auteurModifie = !Objects.equals(user.getNom(), fbData.getNom())
+                    || !Objects.equals(user.getPrenom(), fbData.getPrenom());
             user.setNom(fbData.getNom());
             user.setPrenom(fbData.getPrenom());
             user.setTelephone(fbData.getTelephone());
@@ -203,6 +213,11 @@ public class AuthService {
         }
 
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
+        if (auteurModifie) {
+            // Le nom de l'auteur figure dans la liste des signalements
+            signalementListCache.invalidateAll();
+        }
     }
 
     /**
@@ -213,6 +228,7 @@ public class AuthService {
 
         if (user.getLoginAttempts() >= maxAttempts) {
             user.lockAccount();
+            userDetailsService.evict(user.getEmail());
         }
 
         userRepository.save(user);
@@ -227,6 +243,7 @@ public class AuthService {
             if (LocalDateTime.now().isAfter(unlockTime)) {
                 user.unlockAccount();
                 userRepository.save(user);
+                userDetailsService.evict(user.getEmail());
             }
         }
     }
@@ -237,6 +254,7 @@ public class AuthService {
      */
     @Transactional
     public void logout(String token) {
+        verifiedTokenCache.invalidate(token);
         sessionRepository.findByTokenAndIsValidTrue(token)
                 .ifPresent(session -> {
                     session.invalidate();
@@ -326,6 +344,10 @@ public class AuthService {
         }
 
         user = userRepository.save(user);
+        userDetailsService.evict(email);
+        userDetailsService.evict(user.getEmail());
+        // Le nom et l'email de l'auteur figurent dans la liste des signalements
+        signalementListCache.invalidateAll();
         return mapToUserDto(user);
     }
 
@@ -346,6 +368,7 @@ public class AuthService {
 
         user.unlockAccount();
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
     }
 
     /**
@@ -365,6 +388,7 @@ public class AuthService {
 
         user.unlockAccount();
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
     }
 
     private AuthResponse generateAuthResponse(User user) {
@@ -468,6 +492,7 @@ public class AuthService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
         userRepository.delete(user);
+        userDetailsService.evict(user.getEmail());
     }
 
     private UserListResponse mapToUserListResponse(User user) {
@@ -10,13 +10,12 @@ import com.road.project.road_back.auth.dto.RegisterRequest;
 import com.road.project.road_back.auth.dto.UpdateProfileRequest;
 import com.road.project.road_back.auth.entity.Role;
 import com.road.project.road_back.auth.entity.User;
+import com.road.project.road_back.config.ConnectivityMonitor;
 import com.road.project.road_back.config.FirebaseConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -42,21 +41,17 @@ import java.util.concurrent.TimeoutException;
 public class FirebaseUserService {
 
     private final FirebaseConfig firebaseConfig;
+    private final ConnectivityMonitor connectivityMonitor;
     
     private static final String USERS_COLLECTION = "users";
     private static final int TIMEOUT_SECONDS = 10;
 
     /**
      * Vérifie si une connexion Internet est disponible et Firebase initialisé.
+     * L'état de la connexion provient du cache de {@link ConnectivityMonitor}.
      */
     public boolean isOnline() {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress("8.8.8.8", 53), 3000);
-            return firebaseConfig.isFirebaseInitialized();
-        } catch (Exception e) {
-            log.debug("Pas de connexion Internet détectée: {}", e.getMessage());
-            return false;
-        }
+        return connectivityMonitor.isOnline() && firebaseConfig.isFirebaseInitialized();
     }
 
     /**
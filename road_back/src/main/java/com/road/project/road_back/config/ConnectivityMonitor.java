@@ -0,0 +1,149 @@
+package com.road.project.road_back.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Surveille la connectivité Internet en arrière-plan.
+ *
+ * Une sonde TCP (par défaut 8.8.8.8:53) est exécutée périodiquement par un thread dédié ;
+ * le résultat est mis en cache et lu sans verrou par les services Firebase.
+ * Hors ligne, l'intervalle entre deux sondes double jusqu'à un maximum (backoff).
+ */
+@Component
+@Slf4j
+public class ConnectivityMonitor {
+
+    /**
+     * Listener notifié à chaque changement d'état de la connectivité.
+     */
+    @FunctionalInterface
+    public interface ConnectivityListener {
+        void onConnectivityChange(boolean online);
+    }
+
+    @Value("${app.connectivity.probe-host:8.8.8.8}")
+    private String probeHost;
+
+    @Value("${app.connectivity.probe-port:53}")
+    private int probePort;
+
+    @Value("${app.connectivity.probe-timeout-ms:3000}")
+    private int probeTimeoutMs;
+
+    @Value("${app.connectivity.online-interval-ms:30000}")
+    private long onlineIntervalMs;
+
+    @Value("${app.connectivity.offline-initial-interval-ms:2000}")
+    private long offlineInitialIntervalMs;
+
+    @Value("${app.connectivity.offline-max-interval-ms:60000}")
+    private long offlineMaxIntervalMs;
+
+    private final List<ConnectivityListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean online = false;
+    private long currentOfflineIntervalMs;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        currentOfflineIntervalMs = offlineInitialIntervalMs;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connectivity-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::probeAndReschedule);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Retourne le dernier état connu de la connectivité (aucun appel réseau).
+     */
+    public boolean isOnline() {
+        return online;
+    }
+
+    /**
+     * Enregistre un listener notifié lors des transitions en ligne / hors ligne.
+     */
+    public void addListener(ConnectivityListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ConnectivityListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Force une sonde immédiate en arrière-plan (par exemple après une erreur réseau).
+     */
+    public void requestProbe() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.execute(() -> updateState(probe()));
+        }
+    }
+
+    private void probeAndReschedule() {
+        boolean reachable = probe();
+        updateState(reachable);
+
+        long delay;
+        if (reachable) {
+            currentOfflineIntervalMs = offlineInitialIntervalMs;
+            delay = onlineIntervalMs;
+        } else {
+            delay = currentOfflineIntervalMs;
+            currentOfflineIntervalMs = Math.min(currentOfflineIntervalMs * 2, offlineMaxIntervalMs);
+        }
+
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::probeAndReschedule, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean probe() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(probeHost, probePort), probeTimeoutMs);
+            return true;
+        } catch (Exception e) {
+            log.debug("Pas de connexion Internet détectée: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void updateState(boolean reachable) {
+        if (online == reachable) {
+            return;
+        }
+        online = reachable;
+        log.info("Connectivité Internet: {}", reachable ? "en ligne" : "hors ligne");
+
+        for (ConnectivityListener listener : listeners) {
+            try {
+                listener.onConnectivityChange(reachable);
+            } catch (Exception e) {
+                log.warn("Erreur dans un listener de connectivité: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -3,31 +3,125 @@ package com.road.project.road_back.config;
 import com.road.project.road_back.auth.entity.User;
 import com.road.project.road_back.auth.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Service de chargement des détails utilisateur pour Spring Security.
+ *
+ * Les requêtes authentifiées par JWT passent par {@link #loadCachedUser(String)} :
+ * un cache borné (LRU + durée de vie) par email évite une requête en base à chaque appel.
+ * Toute modification d'un utilisateur (verrouillage, rôle, profil) doit appeler
+ * {@link #evict(String)}, qui retire aussi ses tokens du {@link VerifiedTokenCache}.
+ *
+ * Chaque éviction incrémente la version de l'email : un chargement commencé avant
+ * l'éviction (lecture de l'ancien état) n'est pas remis en cache.
  */
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Value("${app.security.user-cache.max-size:1000}")
+    private int cacheMaxSize;
+
+    @Value("${app.security.user-cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    private final Map<String, CachedUser> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+            return size() > cacheMaxSize;
+        }
+    };
+
+    // Version par email, incrémentée à chaque éviction (entrées conservées pour écarter un retour à 0)
+    private final Map<String, Long> versions = new HashMap<>();
+    private long lastVersion;
+
+    private record CachedUser(UserDetails details, long expiresAt) {
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        return toUserDetails(findUser(email), true);
+    }
+
+    /**
+     * Charge les détails utilisateur pour une requête déjà authentifiée par token.
+     * Le mot de passe n'est pas conservé dans le cache.
+     */
+    public UserDetails loadCachedUser(String email) throws UsernameNotFoundException {
+        long now = System.currentTimeMillis();
+        long version;
+        synchronized (cache) {
+            CachedUser cached = cache.get(email);
+            if (cached != null && cached.expiresAt() > now) {
+                return cached.details();
+            }
+            version = versions.getOrDefault(email, 0L);
+        }
+
+        UserDetails details = toUserDetails(findUser(email), false);
+        synchronized (cache) {
+            // Évincé pendant la lecture : l'état lu peut être antérieur à la modification
+            if (versions.getOrDefault(email, 0L) == version) {
+                cache.put(email, new CachedUser(details, now + cacheTtlSeconds * 1000));
+            }
+        }
+        return details;
+    }
+
+    /**
+     * Retire un utilisateur du cache, immédiatement puis de nouveau à la fin
+     * de la transaction en cours pour écarter une relecture de l'ancien état.
+     */
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        remove(email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(email);
+                }
+            });
+        }
+    }
+
+    private void remove(String email) {
+        synchronized (cache) {
+            cache.remove(email);
+            versions.put(email, ++lastVersion);
+        }
+        verifiedTokenCache.invalidateUser(email);
+    }
+
+    private User findUser(String email) {
+        return userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé avec l'email: " + email));
+    }
 
+    private UserDetails toUserDetails(User user, boolean withPassword) {
         return new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
-                user.getPassword(),
+                withPassword ? user.getPassword() : "",
                 user.getIsActive() && !user.getIsLocked(),
                 true,
                 true,
@@ -36,4 +130,3 @@ public class CustomUserDetailsService implements UserDetailsService {
         );
     }
 }
-
@@ -15,6 +15,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * Filtre JWT pour l'authentification des requêtes.
@@ -25,6 +26,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Override
     protected void doFilterInternal(
@@ -34,11 +36,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String jwt = getJwtFromRequest(request);
+            UserDetails userDetails = StringUtils.hasText(jwt) ? authenticate(jwt) : null;
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt) && !jwtTokenProvider.isTokenExpired(jwt)) {
-                String email = jwtTokenProvider.getEmailFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -52,6 +52,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Retourne l'utilisateur du token. La signature n'est vérifiée que si le token
+     * n'est pas déjà en cache ; les droits sont toujours relus via le cache utilisateur.
+     */
+    private UserDetails authenticate(String jwt) {
+        Optional<VerifiedTokenCache.Entry> cached = verifiedTokenCache.get(jwt);
+        if (cached.isPresent()) {
+            return userDetailsService.loadCachedUser(cached.get().email());
+        }
+
+        Optional<JwtTokenProvider.VerifiedToken> token = jwtTokenProvider.parseAndValidate(jwt);
+        if (token.isEmpty()) {
+            return null;
+        }
+
+        String email = token.get().email();
+        long generation = verifiedTokenCache.generation(email);
+        UserDetails userDetails = userDetailsService.loadCachedUser(email);
+        verifiedTokenCache.put(jwt, email, token.get().expiration(), generation);
+        return userDetails;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
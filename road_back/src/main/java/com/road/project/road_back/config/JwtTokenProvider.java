@@ -3,10 +3,12 @@ package com.road.project.road_back.config;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 import javax.crypto.SecretKey;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,6 +16,7 @@ import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -32,6 +35,24 @@ public class JwtTokenProvider {
     @Value("${app.jwt.refresh-expiration-ms}")
     private long refreshExpirationMs;
 
+    // Clé et parser construits une seule fois (immuables et thread-safe)
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * Sujet et expiration d'un token dont la signature et la validité ont été vérifiées.
+     */
+    public record VerifiedToken(String email, Date expiration) {
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
     /* =======================
        MÉTHODES DE GÉNÉRATION
        ======================= */
@@ -69,7 +90,7 @@ public class JwtTokenProvider {
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -100,26 +121,36 @@ public class JwtTokenProvider {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
     /* =======================
        VALIDATION
        ======================= */
 
+    /**
+     * Vérifie la signature et l'expiration du token en une seule lecture.
+     *
+     * @return le sujet et l'expiration, ou vide si le token est invalide ou expiré
+     */
+    public Optional<VerifiedToken> parseAndValidate(String token) {
+        try {
+            Claims claims = extractAllClaims(token);
+            if (claims.getSubject() == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new VerifiedToken(claims.getSubject(), claims.getExpiration()));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Valide le token JWT.
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            jwtParser.parseSignedClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -144,12 +175,4 @@ public class JwtTokenProvider {
     public long getExpirationDurationSeconds() {
         return jwtExpirationMs / 1000;
     }
-
-    /* =======================
-       CLÉ DE SIGNATURE
-       ======================= */
-
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
-    }
 }
@@ -47,7 +47,9 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh", "/api/auth/status").permitAll()
                         .requestMatchers("/api/auth/unlock/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/api-docs/**", "/swagger-ui.html").permitAll()
-                        .requestMatchers("/api/map/tiles/**", "/api/map/config").permitAll()
+                        .requestMatchers("/api/map/tiles/**", "/api/map/signalements/**", "/api/map/config").permitAll()
+                        // Synchronisation (flux complet, suppressions comprises) : utilisateur authentifié
+                        .requestMatchers("/api/signalements/sync/**").authenticated()
                         // Routes pour les signalements (lecture publique)
                         .requestMatchers(HttpMethod.GET, "/api/signalements/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/signalements/stats").permitAll()
@@ -70,7 +72,7 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(List.of("*"));
         configuration.setAllowCredentials(true);
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setExposedHeaders(List.of("Authorization", "X-Next-Cursor"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -0,0 +1,117 @@
+package com.road.project.road_back.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache LRU des tokens JWT déjà vérifiés.
+ *
+ * La clé est l'empreinte SHA-256 du token (le token lui-même n'est pas conservé).
+ * Seules les données vérifiées du token (email, expiration) sont gardées : les droits
+ * de l'utilisateur sont relus à chaque requête via {@link CustomUserDetailsService#loadCachedUser(String)}.
+ * Une entrée expire avec le token ; elle est retirée à la déconnexion et
+ * lorsque l'utilisateur correspondant est modifié.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Value("${app.security.token-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    // Génération par email, incrémentée par invalidateUser
+    private final Map<String, Long> generations = new HashMap<>();
+    private long lastGeneration;
+
+    /**
+     * Email vérifié d'un token et date d'expiration de ce token.
+     */
+    public record Entry(String email, long expiresAt) {
+    }
+
+    public Optional<Entry> get(String token) {
+        String key = hash(token);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (entry.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry);
+        }
+    }
+
+    /**
+     * Génération courante de l'utilisateur, à lire avant de charger ses données.
+     */
+    public long generation(String email) {
+        synchronized (entries) {
+            return generations.getOrDefault(email, 0L);
+        }
+    }
+
+    /**
+     * Ajoute un token vérifié, sauf si l'utilisateur a été invalidé depuis
+     * la lecture de {@code generation}.
+     */
+    public void put(String token, String email, Date expiration, long generation) {
+        if (expiration == null) {
+            return;
+        }
+        String key = hash(token);
+        synchronized (entries) {
+            if (generations.getOrDefault(email, 0L) == generation) {
+                entries.put(key, new Entry(email, expiration.getTime()));
+            }
+        }
+    }
+
+    /**
+     * Retire un token du cache (déconnexion).
+     */
+    public void invalidate(String token) {
+        String key = hash(token);
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Retire tous les tokens d'un utilisateur.
+     */
+    public void invalidateUser(String email) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.email().equals(email));
+            generations.put(email, ++lastGeneration);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.road.project.road_back.map.controller;
 
 import com.road.project.road_back.map.dto.MapConfigResponse;
+import com.road.project.road_back.map.dto.TilePrefetchStatusResponse;
 import com.road.project.road_back.map.service.MapService;
+import com.road.project.road_back.map.service.SignalementTileService;
+import com.road.project.road_back.map.service.TileCache;
+import com.road.project.road_back.map.service.TilePrefetchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.nio.file.Files;
 
 /**
  * Contrôleur REST pour la cartographie.
@@ -24,7 +33,19 @@ import java.io.IOException;
 @Tag(name = "Cartographie", description = "API de gestion des cartes et tuiles")
 public class MapController {
 
+    private static final MediaType MVT = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final MapService mapService;
+    private final SignalementTileService signalementTileService;
+    private final TilePrefetchService tilePrefetchService;
+
+    @Value("${app.map.tile-response.sendfile:true}")
+    private boolean sendfile;
 
     @GetMapping("/config")
     @Operation(summary = "Récupérer la configuration de la carte")
@@ -39,39 +60,133 @@ public class MapController {
     @Operation(summary = "Récupérer une tuile de carte")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Tuile récupérée"),
+            @ApiResponse(responseCode = "304", description = "Tuile inchangée"),
             @ApiResponse(responseCode = "404", description = "Tuile non trouvée")
     })
-    public ResponseEntity<Resource> getTile(
+    public void getTile(
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        TileCache.Tile tile = mapService.getTile(z, x, y);
+
+        if (tile == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, tile.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=86400");
+        if (etagMatches(ifNoneMatch, tile.etag())) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(MediaType.IMAGE_PNG_VALUE);
+        response.setContentLengthLong(tile.length());
+
+        if (sendfile && tile.file() != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                && fileHoldsTile(tile)) {
+            // Tomcat envoie la zone du fichier par sendfile (FileChannel.transferTo) : page cache -> socket
+            request.setAttribute(SENDFILE_FILENAME, tile.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, tile.offset());
+            request.setAttribute(SENDFILE_END, tile.offset() + tile.length());
+            return;
+        }
+        // Sinon le buffer hors tas est écrit tel quel, sans passer par un tableau Java
+        response.getOutputStream().write(tile.data().duplicate());
+    }
+
+    /**
+     * Sendfile envoie le fichier tel qu'il est sur disque, alors que l'ETag vient de la copie en cache.
+     * On suppose qu'un fichier n'est remplacé que par la même tuile (renommage atomique d'un
+     * nouveau téléchargement) et que l'archive PMTiles ne change pas pendant l'exécution ;
+     * la taille est tout de même vérifiée, sinon la tuile est envoyée depuis le cache.
+     */
+    private static boolean fileHoldsTile(TileCache.Tile tile) {
+        try {
+            long size = Files.size(tile.file());
+            return tile.offset() == 0 ? size == tile.length() : size >= tile.offset() + tile.length();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @GetMapping("/signalements/{z}/{x}/{y}.mvt")
+    @Operation(summary = "Tuile vectorielle (MVT) des signalements actifs",
+            description = "Couche \"signalements\" avec les attributs id, statut, niveau et priorite")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tuile récupérée"),
+            @ApiResponse(responseCode = "304", description = "Tuile inchangée"),
+            @ApiResponse(responseCode = "400", description = "Coordonnées de tuile invalides")
+    })
+    public ResponseEntity<byte[]> getSignalementTile(
             @PathVariable int z,
             @PathVariable int x,
-            @PathVariable int y) throws IOException {
+            @PathVariable int y,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        Resource tile = mapService.getTile(z, x, y);
+        SignalementTileService.VectorTile tile = signalementTileService.getTile(z, x, y);
 
-        if (tile == null || !tile.exists()) {
-            return ResponseEntity.notFound().build();
+        // La tuile change avec les signalements : le client revalide à chaque affichage via l'ETag
+        CacheControl cacheControl = CacheControl.noCache().cachePublic();
+        if (etagMatches(ifNoneMatch, tile.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(tile.etag())
+                    .cacheControl(cacheControl)
+                    .build();
         }
 
         return ResponseEntity.ok()
-                .contentType(MediaType.IMAGE_PNG)
-                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=86400")
-                .body(tile);
+                .contentType(MVT)
+                .eTag(tile.etag())
+                .cacheControl(cacheControl)
+                .body(tile.data());
     }
 
     @PostMapping("/preload")
-    @Operation(summary = "Précharger les tuiles pour utilisation offline (Manager)")
+    @Operation(summary = "Précharger les tuiles pour utilisation offline (Manager)",
+            description = "Lance le préchargement en arrière-plan, ou retourne l'état de celui déjà en cours")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Préchargement lancé"),
+            @ApiResponse(responseCode = "400", description = "Niveaux de zoom invalides"),
             @ApiResponse(responseCode = "403", description = "Accès refusé")
     })
-    public ResponseEntity<String> preloadTiles(
+    public ResponseEntity<TilePrefetchStatusResponse> preloadTiles(
             @RequestParam(defaultValue = "12") int minZoom,
             @RequestParam(defaultValue = "15") int maxZoom) {
+        return ResponseEntity.ok(tilePrefetchService.start(minZoom, maxZoom));
+    }
 
-        // Lancer le préchargement en async
-        new Thread(() -> mapService.preloadTiles(minZoom, maxZoom)).start();
+    @GetMapping("/preload/status")
+    @Operation(summary = "État du préchargement des tuiles",
+            description = "Progression, tuiles restantes et débit (tuiles par seconde)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "État récupéré")
+    })
+    public ResponseEntity<TilePrefetchStatusResponse> getPreloadStatus() {
+        return ResponseEntity.ok(tilePrefetchService.getStatus());
+    }
 
-        return ResponseEntity.ok("Préchargement des tuiles lancé en arrière-plan");
+    /**
+     * Vrai si l'en-tête If-None-Match contient l'ETag (ou "*").
+     */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
-
@@ -0,0 +1,38 @@
+package com.road.project.road_back.map.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO pour l'état du préchargement des tuiles.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TilePrefetchStatusResponse {
+
+    private State state;
+    private Integer minZoom;
+    private Integer maxZoom;
+    private Long totalTiles;
+    private Long processedTiles;
+    private Long remainingTiles;
+    private Long downloadedTiles;
+    private Long skippedTiles; // déjà présentes (archive ou cache disque)
+    private Long failedTiles;
+    private Double tilesPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        PAUSED, // serveur de tuiles indisponible : reprise automatique à son retour
+        COMPLETED
+    }
+}
@@ -1,29 +1,38 @@
 package com.road.project.road_back.map.service;
 
 import com.road.project.road_back.map.dto.MapConfigResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Service de gestion des tuiles de carte.
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class MapService {
 
+    private final PmtilesArchive pmtilesArchive;
+    private final TileCache tileCache;
+    private final TileUpstreamClient tileUpstreamClient;
+
     @Value("${app.map.tiles-directory:./tiles}")
     private String tilesDirectory;
 
@@ -36,7 +45,7 @@ public class MapService {
     @Value("${app.map.antananarivo.default-zoom:13}")
     private Integer defaultZoom;
 
-    private static final String OSM_TILE_SERVER = "https://tile.openstreetmap.org";
+    private final Map<String, CompletableFuture<Boolean>> downloadsInFlight = new ConcurrentHashMap<>();
 
     /**
      * Récupère la configuration de la carte pour Antananarivo.
@@ -61,21 +70,53 @@ public class MapService {
 
     /**
      * Récupère une tuile de carte.
-     * Essaie d'abord le cache local, puis télécharge depuis OSM si nécessaire.
+     * Sert d'abord le cache mémoire, puis l'archive PMTiles, le cache disque,
+     * et télécharge depuis OSM si nécessaire.
      */
-    public Resource getTile(int z, int x, int y) throws IOException {
+    public TileCache.Tile getTile(int z, int x, int y) throws IOException {
+        TileCache.Tile cached = tileCache.get(z, x, y);
+        if (cached != null) {
+            return cached;
+        }
+
+        TileContent content = loadTile(z, x, y);
+        if (content == null) {
+            return null;
+        }
+        return content.mapped()
+                ? tileCache.put(z, x, y, content.data(), content.file(), content.offset())
+                : tileCache.putOwned(z, x, y, content.data(), content.file(), content.offset());
+    }
+
+    /**
+     * Tuile lue sur disque : {@code data} est soit une vue mappée de l'archive PMTiles
+     * ({@code mapped}, à copier), soit un buffer du cache dans lequel le fichier a été lu.
+     */
+    private record TileContent(ByteBuffer data, Path file, long offset, boolean mapped) {
+    }
+
+    private TileContent loadTile(int z, int x, int y) throws IOException {
+        Optional<PmtilesArchive.TileLocation> archived = pmtilesArchive.locate(z, x, y);
+        if (archived.isPresent()) {
+            PmtilesArchive.TileLocation location = archived.get();
+            return new TileContent(pmtilesArchive.read(location), location.file(), location.offset(), true);
+        }
+
         Path tilePath = getTilePath(z, x, y);
 
         // Vérifier le cache local
-        if (Files.exists(tilePath)) {
-            return new UrlResource(tilePath.toUri());
+        ByteBuffer local = readFile(tilePath);
+        if (local != null) {
+            return new TileContent(local, tilePath, 0, false);
         }
 
         // Télécharger depuis OSM et mettre en cache
         try {
-            downloadAndCacheTile(z, x, y, tilePath);
-            if (Files.exists(tilePath)) {
-                return new UrlResource(tilePath.toUri());
+            if (fetchOnce(z, x, y, tilePath)) {
+                ByteBuffer downloaded = readFile(tilePath);
+                if (downloaded != null) {
+                    return new TileContent(downloaded, tilePath, 0, false);
+                }
             }
         } catch (Exception e) {
             log.warn("Impossible de télécharger la tuile {}/{}/{}: {}", z, x, y, e.getMessage());
@@ -86,65 +127,99 @@ public class MapService {
     }
 
     /**
-     * Télécharge une tuile depuis OSM et la met en cache.
+     * Lit le fichier dans un buffer du cache de tuiles, ou retourne null s'il n'existe pas.
+     * Les tuiles font quelques Ko : une lecture directe coûte moins qu'une projection
+     * mémoire par fichier (libérée seulement par le GC).
      */
-    private void downloadAndCacheTile(int z, int x, int y, Path tilePath) throws IOException {
-        String tileUrl = String.format("%s/%d/%d/%d.png", OSM_TILE_SERVER, z, x, y);
-
-        URL url = URI.create(tileUrl).toURL();
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestProperty("User-Agent", "RoadSignalingApp/1.0");
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(5000);
-
-        if (connection.getResponseCode() == 200) {
-            // Créer les répertoires si nécessaire
-            Files.createDirectories(tilePath.getParent());
-
-            try (InputStream inputStream = connection.getInputStream()) {
-                Files.copy(inputStream, tilePath, StandardCopyOption.REPLACE_EXISTING);
+    private ByteBuffer readFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = tileCache.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
             }
+            return buffer.flip();
+        } catch (NoSuchFileException e) {
+            return null;
         }
+    }
 
-        connection.disconnect();
+    /**
+     * Vrai si la tuile est déjà disponible sans téléchargement (archive ou cache disque).
+     */
+    public boolean hasTile(int z, int x, int y) {
+        return pmtilesArchive.locate(z, x, y).isPresent() || Files.exists(getTilePath(z, x, y));
     }
 
-    private Path getTilePath(int z, int x, int y) {
-        return Paths.get(tilesDirectory, String.valueOf(z), String.valueOf(x), y + ".png");
+    /**
+     * Télécharge une tuile vers le cache disque sans la charger en mémoire (préchargement).
+     * Retourne false si le serveur de tuiles ne la fournit pas.
+     */
+    public boolean downloadTile(int z, int x, int y) throws IOException {
+        return fetchOnce(z, x, y, getTilePath(z, x, y));
     }
 
     /**
-     * Pré-télécharge les tuiles pour une zone donnée.
+     * Téléchargement unique par tuile : les demandes simultanées d'une même tuile
+     * attendent le téléchargement déjà lancé au lieu d'interroger le serveur à leur tour.
+     * Retourne true si la tuile est présente sur disque à la fin.
      */
-    public void preloadTiles(int minZoom, int maxZoom) {
-        // Bounds d'Antananarivo
-        double north = -18.75;
-        double south = -19.05;
-        double east = 47.65;
-        double west = 47.40;
-
-        for (int z = minZoom; z <= maxZoom; z++) {
-            int[] nw = latLngToTile(north, west, z);
-            int[] se = latLngToTile(south, east, z);
-
-            for (int x = nw[0]; x <= se[0]; x++) {
-                for (int y = nw[1]; y <= se[1]; y++) {
-                    try {
-                        getTile(z, x, y);
-                        Thread.sleep(100); // Respecter les limites de rate d'OSM
-                    } catch (Exception e) {
-                        log.error("Erreur lors du préchargement de la tuile {}/{}/{}", z, x, y, e);
-                    }
-                }
+    private boolean fetchOnce(int z, int x, int y, Path tilePath) throws IOException {
+        String key = z + "/" + x + "/" + y;
+        CompletableFuture<Boolean> flight = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = downloadsInFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Téléchargement interrompu", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
             }
         }
+
+        try {
+            // Un téléchargement précédent a pu se terminer entre la lecture du cache et ici
+            if (!Files.exists(tilePath)) {
+                downloadAndCacheTile(z, x, y, tilePath);
+            }
+            boolean present = Files.exists(tilePath);
+            flight.complete(present);
+            return present;
+        } catch (IOException | RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            downloadsInFlight.remove(key, flight);
+        }
     }
 
-    private int[] latLngToTile(double lat, double lng, int zoom) {
-        int n = (int) Math.pow(2, zoom);
-        int x = (int) ((lng + 180.0) / 360.0 * n);
-        int y = (int) ((1.0 - Math.log(Math.tan(Math.toRadians(lat)) + 1 / Math.cos(Math.toRadians(lat))) / Math.PI) / 2.0 * n);
-        return new int[]{x, y};
+    /**
+     * Télécharge une tuile depuis le serveur de tuiles et la met en cache.
+     * Ne fait rien si le serveur ne la fournit pas ou s'il est indisponible (disjoncteur ouvert).
+     */
+    private void downloadAndCacheTile(int z, int x, int y, Path tilePath) throws IOException {
+        byte[] content = tileUpstreamClient.fetch(z, x, y);
+        if (content == null) {
+            return;
+        }
+        // Créer les répertoires si nécessaire
+        Files.createDirectories(tilePath.getParent());
+
+        // Écriture dans un fichier temporaire puis renommage atomique : jamais de PNG partiel visible
+        Path temp = Files.createTempFile(tilePath.getParent(), tilePath.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, tilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
     }
-}
 
+    private Path getTilePath(int z, int x, int y) {
+        return Paths.get(tilesDirectory, String.valueOf(z), String.valueOf(x), y + ".png");
+    }
+}
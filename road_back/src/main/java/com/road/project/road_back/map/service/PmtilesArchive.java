@@ -0,0 +1,331 @@
+package com.road.project.road_back.map.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Lecture des tuiles raster depuis une archive PMTiles (v3) projetée en mémoire.
+ *
+ * Le fichier est ouvert une seule fois au démarrage : une tuile est une tranche du
+ * buffer mappé, sans recherche de fichier ni appel système par requête. Les répertoires
+ * de l'archive sont décodés à la première utilisation puis gardés dans un cache LRU.
+ *
+ * Une archive MBTiles se convertit avec {@code pmtiles convert antananarivo.mbtiles antananarivo.pmtiles}.
+ */
+@Component
+@Slf4j
+public class PmtilesArchive {
+
+    private static final int HEADER_LENGTH = 127;
+    private static final int MAX_DIRECTORY_DEPTH = 4;
+    private static final int MAX_CACHED_DIRECTORIES = 256;
+
+    private static final int COMPRESSION_UNKNOWN = 0;
+    private static final int COMPRESSION_NONE = 1;
+    private static final int COMPRESSION_GZIP = 2;
+    private static final int TILE_TYPE_PNG = 2;
+
+    @Value("${app.map.pmtiles-file:}")
+    private String pmtilesFile;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    private long rootOffset;
+    private long rootLength;
+    private long leafOffset;
+    private long tileDataOffset;
+    private int internalCompression;
+    private int minZoom;
+    private int maxZoom;
+
+    private final Map<Long, Entry[]> directories = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry[]> eldest) {
+            return size() > MAX_CACHED_DIRECTORIES;
+        }
+    };
+
+    /**
+     * Entrée de répertoire : runLength == 0 désigne un répertoire feuille.
+     */
+    private record Entry(long tileId, long offset, int length, long runLength) {
+    }
+
+    /**
+     * Position d'une tuile dans le fichier de l'archive.
+     */
+    public record TileLocation(Path file, long offset, int length) {
+    }
+
+    @PostConstruct
+    void open() {
+        if (pmtilesFile == null || pmtilesFile.isBlank()) {
+            return;
+        }
+        Path path = Paths.get(pmtilesFile);
+        if (!Files.isRegularFile(path)) {
+            log.warn("Archive PMTiles introuvable ({}), tuiles servies depuis le répertoire local", path);
+            return;
+        }
+
+        try {
+            FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+            long size = fileChannel.size();
+            if (size > Integer.MAX_VALUE) {
+                fileChannel.close();
+                log.warn("Archive PMTiles trop volumineuse pour être projetée en mémoire ({} octets)", size);
+                return;
+            }
+            MappedByteBuffer mapped = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (!readHeader(mapped)) {
+                fileChannel.close();
+                return;
+            }
+            channel = fileChannel;
+            buffer = mapped;
+            log.info("Archive PMTiles ouverte: {} (zooms {} à {})", path, minZoom, maxZoom);
+        } catch (IOException e) {
+            log.error("Impossible d'ouvrir l'archive PMTiles {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public boolean isAvailable() {
+        return buffer != null;
+    }
+
+    public Path getFile() {
+        return Paths.get(pmtilesFile);
+    }
+
+    /**
+     * Contenu d'une tuile : vue en lecture seule sur la zone mappée (aucune copie).
+     */
+    public Optional<ByteBuffer> getTile(int z, int x, int y) {
+        return locate(z, x, y).map(this::read);
+    }
+
+    /**
+     * Contenu de la tuile à la position donnée, sans copie.
+     */
+    public ByteBuffer read(TileLocation location) {
+        return buffer.slice((int) location.offset(), location.length()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Position de la tuile dans l'archive, si elle y figure.
+     */
+    public Optional<TileLocation> locate(int z, int x, int y) {
+        if (buffer == null || z < minZoom || z > maxZoom) {
+            return Optional.empty();
+        }
+        long n = 1L << z;
+        if (x < 0 || x >= n || y < 0 || y >= n) {
+            return Optional.empty();
+        }
+
+        long tileId = tileId(z, x, y);
+        long dirOffset = rootOffset;
+        long dirLength = rootLength;
+
+        for (int depth = 0; depth < MAX_DIRECTORY_DEPTH; depth++) {
+            Entry entry = find(directory(dirOffset, dirLength), tileId);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (entry.runLength() > 0) {
+                return Optional.of(new TileLocation(getFile(), tileDataOffset + entry.offset(), entry.length()));
+            }
+            dirOffset = leafOffset + entry.offset();
+            dirLength = entry.length();
+        }
+        return Optional.empty();
+    }
+
+    private boolean readHeader(ByteBuffer header) {
+        if (header.capacity() < HEADER_LENGTH) {
+            log.warn("Fichier PMTiles invalide: en-tête tronqué ({} octets)", header.capacity());
+            return false;
+        }
+        byte[] magic = new byte[7];
+        header.get(0, magic);
+        if (!"PMTiles".equals(new String(magic, StandardCharsets.US_ASCII)) || header.get(7) != 3) {
+            log.warn("Fichier PMTiles invalide ou version non supportée");
+            return false;
+        }
+
+        rootOffset = header.getLong(8);
+        rootLength = header.getLong(16);
+        leafOffset = header.getLong(40);
+        tileDataOffset = header.getLong(56);
+        internalCompression = header.get(97);
+        int tileCompression = header.get(98);
+        int tileType = header.get(99);
+        minZoom = Byte.toUnsignedInt(header.get(100));
+        maxZoom = Byte.toUnsignedInt(header.get(101));
+
+        // L'endpoint /tiles sert des PNG tels quels : les archives vectorielles ou compressées sont ignorées
+        if (tileType != TILE_TYPE_PNG || (tileCompression != COMPRESSION_NONE && tileCompression != COMPRESSION_UNKNOWN)) {
+            log.warn("Archive PMTiles ignorée: seules les tuiles PNG non compressées sont servies (type {}, compression {})",
+                    tileType, tileCompression);
+            return false;
+        }
+        if (internalCompression != COMPRESSION_NONE && internalCompression != COMPRESSION_GZIP) {
+            log.warn("Archive PMTiles ignorée: compression des répertoires non supportée ({})", internalCompression);
+            return false;
+        }
+        return true;
+    }
+
+    private Entry[] directory(long offset, long length) {
+        synchronized (directories) {
+            Entry[] cached = directories.get(offset);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Entry[] entries = decodeDirectory(read(offset, (int) length));
+        synchronized (directories) {
+            directories.put(offset, entries);
+        }
+        return entries;
+    }
+
+    private byte[] read(long offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get((int) offset, bytes);
+        if (internalCompression != COMPRESSION_GZIP) {
+            return bytes;
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+            in.transferTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Répertoire PMTiles illisible", e);
+        }
+    }
+
+    private static Entry[] decodeDirectory(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        int count = (int) readVarint(in);
+
+        long[] tileIds = new long[count];
+        long lastId = 0;
+        for (int i = 0; i < count; i++) {
+            lastId += readVarint(in);
+            tileIds[i] = lastId;
+        }
+        long[] runLengths = new long[count];
+        for (int i = 0; i < count; i++) {
+            runLengths[i] = readVarint(in);
+        }
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = (int) readVarint(in);
+        }
+
+        Entry[] entries = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            long value = readVarint(in);
+            // 0 : la donnée suit immédiatement celle de l'entrée précédente
+            long offset = value == 0 && i > 0
+                    ? entries[i - 1].offset() + entries[i - 1].length()
+                    : value - 1;
+            entries[i] = new Entry(tileIds[i], offset, lengths[i], runLengths[i]);
+        }
+        return entries;
+    }
+
+    /**
+     * Dernière entrée dont l'id est inférieur ou égal à celui recherché, si elle le couvre.
+     */
+    private static Entry find(Entry[] entries, long tileId) {
+        int low = 0;
+        int high = entries.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long cmp = tileId - entries[mid].tileId();
+            if (cmp > 0) {
+                low = mid + 1;
+            } else if (cmp < 0) {
+                high = mid - 1;
+            } else {
+                return entries[mid];
+            }
+        }
+        if (high >= 0) {
+            Entry entry = entries[high];
+            if (entry.runLength() == 0 || tileId - entry.tileId() < entry.runLength()) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Identifiant PMTiles d'une tuile : tuiles des zooms inférieurs puis position sur la courbe de Hilbert.
+     */
+    static long tileId(int z, long x, long y) {
+        long acc = ((1L << (2 * z)) - 1) / 3;
+        long d = 0;
+        for (long s = (1L << z) / 2; s > 0; s /= 2) {
+            long rx = (x & s) > 0 ? 1 : 0;
+            long ry = (y & s) > 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                long t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return acc + d;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,159 @@
+package com.road.project.road_back.map.service;
+
+import com.road.project.road_back.map.util.VectorTileEncoder;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import com.road.project.road_back.signalement.service.SignalementChangeListener;
+import com.road.project.road_back.signalement.service.SignalementSpatialIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tuiles vectorielles (MVT) des signalements actifs, couche "signalements".
+ *
+ * Les tuiles sont générées à partir de {@link SignalementSpatialIndex} et gardées dans
+ * un cache LRU par z/x/y. Une modification de signalement ne retire que les tuiles
+ * contenant son ancienne ou sa nouvelle position, à chaque niveau de zoom.
+ */
+@Service
+@RequiredArgsConstructor
+public class SignalementTileService implements SignalementChangeListener {
+
+    public static final int MAX_ZOOM = 22;
+    public static final String LAYER = "signalements";
+
+    private final SignalementSpatialIndex signalementSpatialIndex;
+
+    @Value("${app.map.vector-tiles.cache-size:2000}")
+    private int cacheSize;
+
+    private final Map<String, VectorTile> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VectorTile> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * Incrémenté à chaque invalidation : une tuile générée pendant une modification n'est pas mise en cache.
+     */
+    private long version;
+
+    /**
+     * Contenu encodé d'une tuile et son ETag.
+     */
+    public record VectorTile(byte[] data, String etag) {
+    }
+
+    public VectorTile getTile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) {
+            throw new RuntimeException("Le niveau de zoom doit être compris entre 0 et " + MAX_ZOOM);
+        }
+        long n = 1L << z;
+        if (x < 0 || x >= n || y < 0 || y >= n) {
+            throw new RuntimeException("Coordonnées de tuile invalides: " + z + "/" + x + "/" + y);
+        }
+
+        String key = key(z, x, y);
+        long startVersion;
+        synchronized (cache) {
+            VectorTile cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            startVersion = version;
+        }
+
+        VectorTile tile = build(z, x, y);
+        synchronized (cache) {
+            if (version == startVersion) {
+                cache.put(key, tile);
+            }
+        }
+        return tile;
+    }
+
+    @Override
+    public void onSignalementChange(SignalementSnapshot before, SignalementSnapshot after) {
+        SignalementSnapshot oldPoint = before != null && before.active() ? before : null;
+        SignalementSnapshot newPoint = after != null && after.active() ? after : null;
+        if (sameTileContent(oldPoint, newPoint)) {
+            return;
+        }
+
+        synchronized (cache) {
+            version++;
+            for (int z = 0; z <= MAX_ZOOM; z++) {
+                evict(oldPoint, z);
+                evict(newPoint, z);
+            }
+        }
+    }
+
+    private VectorTile build(int z, int x, int y) {
+        double west = tileLng(x, z);
+        double east = tileLng(x + 1, z);
+        double north = tileLat(y, z);
+        double south = tileLat(y + 1, z);
+
+        VectorTileEncoder encoder = new VectorTileEncoder(z, x, y);
+        for (SignalementSnapshot s : signalementSpatialIndex.querySnapshots(south, north, west, east)) {
+            // Un point sur la bordure droite ou basse appartient à la tuile voisine
+            if (s.longitude() == east || s.latitude() == south) {
+                continue;
+            }
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("id", s.id());
+            attributes.put("statut", s.statut() != null ? s.statut().name() : null);
+            attributes.put("niveau", s.niveau());
+            attributes.put("priorite", s.priorite());
+            encoder.addPoint(LAYER, s.id(), s.latitude(), s.longitude(), attributes);
+        }
+
+        byte[] data = encoder.encode();
+        return new VectorTile(data, "\"" + DigestUtils.md5DigestAsHex(data) + "\"");
+    }
+
+    /**
+     * Vrai si la modification ne change aucune donnée encodée dans les tuiles.
+     */
+    private static boolean sameTileContent(SignalementSnapshot a, SignalementSnapshot b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Objects.equals(a.latitude(), b.latitude())
+                && Objects.equals(a.longitude(), b.longitude())
+                && a.statut() == b.statut()
+                && Objects.equals(a.niveau(), b.niveau())
+                && Objects.equals(a.priorite(), b.priorite());
+    }
+
+    private void evict(SignalementSnapshot s, int z) {
+        if (s == null || s.latitude() == null || s.longitude() == null) {
+            return;
+        }
+        long n = 1L << z;
+        double latRad = Math.toRadians(s.latitude());
+        long x = (long) Math.floor((s.longitude() + 180) / 360 * n);
+        long y = (long) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * n);
+        cache.remove(key(z, Math.max(0, Math.min(n - 1, x)), Math.max(0, Math.min(n - 1, y))));
+    }
+
+    private static String key(int z, long x, long y) {
+        return z + "/" + x + "/" + y;
+    }
+
+    private static double tileLng(long x, int z) {
+        return x / (double) (1L << z) * 360 - 180;
+    }
+
+    private static double tileLat(long y, int z) {
+        double n = Math.PI - 2 * Math.PI * y / (1L << z);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.road.project.road_back.map.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU des tuiles raster les plus demandées, borné en octets.
+ *
+ * Le contenu est copié dans des buffers directs (hors du tas Java, donc hors GC)
+ * sauf si app.map.tile-cache.off-heap vaut false. Chaque tuile porte un ETag fort
+ * (empreinte MD5 du contenu) qui permet de répondre 304 sans relire la tuile.
+ */
+@Component
+public class TileCache {
+
+    @Value("${app.map.tile-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${app.map.tile-cache.off-heap:true}")
+    private boolean offHeap;
+
+    private final LinkedHashMap<String, Tile> tiles = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Tuile en cache : le buffer est en lecture seule, à dupliquer par chaque lecteur.
+     * {@code file} et {@code offset} situent la tuile sur disque (fichier ou archive), null si inconnu.
+     */
+    public record Tile(ByteBuffer data, String etag, Path file, long offset) {
+
+        public int length() {
+            return data.remaining();
+        }
+    }
+
+    public Tile get(int z, int x, int y) {
+        synchronized (tiles) {
+            return tiles.get(key(z, x, y));
+        }
+    }
+
+    /**
+     * Buffer du type utilisé par le cache (direct ou non), pour y lire une tuile
+     * avant de la confier à {@link #putOwned}.
+     */
+    public ByteBuffer allocate(int length) {
+        return offHeap ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+    }
+
+    /**
+     * Calcule l'ETag de la tuile, la copie dans le cache et retourne l'entrée créée.
+     * Une tuile plus grande que le cache entier est retournée sans être conservée.
+     */
+    public Tile put(int z, int x, int y, ByteBuffer content, Path file, long offset) {
+        ByteBuffer copy = allocate(content.remaining());
+        copy.put(content.duplicate()).flip();
+        return putOwned(z, x, y, copy, file, offset);
+    }
+
+    /**
+     * Comme {@link #put}, sans copie : {@code content} (obtenu par {@link #allocate})
+     * appartient désormais au cache et ne doit plus être modifié.
+     */
+    public Tile putOwned(int z, int x, int y, ByteBuffer content, Path file, long offset) {
+        Tile tile = new Tile(content.asReadOnlyBuffer(), etag(content.duplicate()), file, offset);
+        if (tile.length() > maxBytes) {
+            return tile;
+        }
+
+        synchronized (tiles) {
+            Tile previous = tiles.put(key(z, x, y), tile);
+            if (previous != null) {
+                totalBytes -= previous.length();
+            }
+            totalBytes += tile.length();
+
+            Iterator<Map.Entry<String, Tile>> eldest = tiles.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().length();
+                eldest.remove();
+            }
+        }
+        return tile;
+    }
+
+    private static String etag(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            digest.update(content);
+            return "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 indisponible", e);
+        }
+    }
+
+    private static String key(int z, int x, int y) {
+        return z + "/" + x + "/" + y;
+    }
+}
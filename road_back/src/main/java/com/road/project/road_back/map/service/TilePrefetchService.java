@@ -0,0 +1,409 @@
+package com.road.project.road_back.map.service;
+
+import com.road.project.road_back.map.dto.MapConfigResponse;
+import com.road.project.road_back.map.dto.TilePrefetchStatusResponse;
+import com.road.project.road_back.map.dto.TilePrefetchStatusResponse.State;
+import com.road.project.road_back.map.util.TokenBucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Préchargement des tuiles de la zone d'Antananarivo pour l'utilisation offline.
+ *
+ * Un seul préchargement tourne à la fois : les tuiles sont réparties sur un pool borné
+ * (app.map.prefetch.threads), les téléchargements limités par un seau de jetons
+ * (app.map.prefetch.tiles-per-second) et les tuiles déjà présentes ignorées.
+ * La progression est enregistrée dans le répertoire des tuiles ; un préchargement
+ * interrompu par un arrêt de l'application reprend au démarrage suivant.
+ * Tant que le serveur de tuiles est indisponible (disjoncteur ouvert), le préchargement
+ * est en pause : les tuiles ne sont pas comptées en échec.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TilePrefetchService {
+
+    private static final String STATE_FILE = ".prefetch-state.json";
+    private static final int PERSIST_EVERY = 50;
+
+    private final MapService mapService;
+    private final TileUpstreamClient tileUpstreamClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.map.tiles-directory:./tiles}")
+    private String tilesDirectory;
+
+    @Value("${app.map.prefetch.threads:4}")
+    private int threads;
+
+    @Value("${app.map.prefetch.tiles-per-second:10}")
+    private double tilesPerSecond;
+
+    private ExecutorService coordinator;
+    private ExecutorService workers;
+
+    private Job current;
+    private SavedState lastSaved;
+
+    /**
+     * Progression enregistrée : toutes les tuiles d'index inférieur à {@code nextIndex} sont traitées.
+     */
+    private record SavedState(State state, int minZoom, int maxZoom, long nextIndex,
+                              long downloaded, long skipped, long failed,
+                              LocalDateTime startedAt, LocalDateTime finishedAt) {
+    }
+
+    @PostConstruct
+    void init() {
+        coordinator = Executors.newSingleThreadExecutor(threadFactory("tile-prefetch-job-"));
+        workers = Executors.newFixedThreadPool(threads, threadFactory("tile-prefetch-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resume() {
+        SavedState saved = readState();
+        if (saved == null) {
+            return;
+        }
+        lastSaved = saved;
+        if (saved.state() == State.RUNNING || saved.state() == State.PAUSED) {
+            log.info("Reprise du préchargement des tuiles (zooms {} à {}, à partir de la tuile {})",
+                    saved.minZoom(), saved.maxZoom(), saved.nextIndex());
+            launch(new Job(saved.minZoom(), saved.maxZoom(), saved.nextIndex(),
+                    saved.downloaded(), saved.skipped(), saved.failed(), saved.startedAt()));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+        Job job;
+        synchronized (this) {
+            job = current;
+        }
+        // L'état reste RUNNING (ou PAUSED) : le préchargement reprendra au prochain démarrage
+        if (job != null && job.state != State.COMPLETED) {
+            job.persist();
+        }
+    }
+
+    /**
+     * Lance le préchargement, ou retourne l'état de celui déjà en cours.
+     */
+    public synchronized TilePrefetchStatusResponse start(int minZoom, int maxZoom) {
+        MapConfigResponse config = mapService.getMapConfig();
+        if (minZoom < config.getMinZoom() || maxZoom > config.getMaxZoom() || minZoom > maxZoom) {
+            throw new RuntimeException("Niveaux de zoom invalides : ils doivent être compris entre "
+                    + config.getMinZoom() + " et " + config.getMaxZoom());
+        }
+        if (current != null && current.state != State.COMPLETED) {
+            return current.toStatus();
+        }
+
+        launch(new Job(minZoom, maxZoom, 0, 0, 0, 0, LocalDateTime.now()));
+        log.info("Préchargement des tuiles lancé (zooms {} à {}, {} tuiles)", minZoom, maxZoom, current.total);
+        return current.toStatus();
+    }
+
+    public synchronized TilePrefetchStatusResponse getStatus() {
+        if (current != null) {
+            return current.toStatus();
+        }
+        if (lastSaved != null) {
+            long total = countTiles(lastSaved.minZoom(), lastSaved.maxZoom());
+            return TilePrefetchStatusResponse.builder()
+                    .state(lastSaved.state())
+                    .minZoom(lastSaved.minZoom())
+                    .maxZoom(lastSaved.maxZoom())
+                    .totalTiles(total)
+                    .processedTiles(lastSaved.nextIndex())
+                    .remainingTiles(total - lastSaved.nextIndex())
+                    .downloadedTiles(lastSaved.downloaded())
+                    .skippedTiles(lastSaved.skipped())
+                    .failedTiles(lastSaved.failed())
+                    .startedAt(lastSaved.startedAt())
+                    .finishedAt(lastSaved.finishedAt())
+                    .build();
+        }
+        return TilePrefetchStatusResponse.builder().state(State.IDLE).build();
+    }
+
+    private void launch(Job job) {
+        current = job;
+        coordinator.execute(job);
+    }
+
+    private class Job implements Runnable {
+
+        private final int minZoom;
+        private final int maxZoom;
+        private final long total;
+        private final long resumeIndex;
+        private final AtomicLong downloaded;
+        private final AtomicLong skipped;
+        private final AtomicLong failed;
+        private final AtomicLong processed = new AtomicLong();
+        private final LocalDateTime startedAt;
+        private final long startNanos = System.nanoTime();
+        private final Semaphore slots = new Semaphore(threads * 2);
+        private final TokenBucket rateLimiter = new TokenBucket(tilesPerSecond, Math.max(1, tilesPerSecond));
+
+        /**
+         * Index des tuiles confiées aux workers et non terminées.
+         */
+        private final TreeSet<Long> inFlight = new TreeSet<>();
+        private long nextIndex;
+
+        private volatile State state = State.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedNanos;
+
+        Job(int minZoom, int maxZoom, long resumeIndex, long downloaded, long skipped, long failed,
+            LocalDateTime startedAt) {
+            this.minZoom = minZoom;
+            this.maxZoom = maxZoom;
+            this.total = countTiles(minZoom, maxZoom);
+            this.resumeIndex = resumeIndex;
+            this.nextIndex = resumeIndex;
+            this.downloaded = new AtomicLong(downloaded);
+            this.skipped = new AtomicLong(skipped);
+            this.failed = new AtomicLong(failed);
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long index = 0;
+                for (int z = minZoom; z <= maxZoom; z++) {
+                    int[] range = tileRange(z);
+                    for (int x = range[0]; x <= range[2]; x++) {
+                        for (int y = range[1]; y <= range[3]; y++) {
+                            long tileIndex = index++;
+                            if (tileIndex < resumeIndex) {
+                                continue;
+                            }
+                            slots.acquire();
+                            synchronized (inFlight) {
+                                inFlight.add(tileIndex);
+                                nextIndex = tileIndex + 1;
+                            }
+                            int tz = z, tx = x, ty = y;
+                            workers.execute(() -> process(tileIndex, tz, tx, ty));
+                        }
+                    }
+                }
+                // Attendre la fin des dernières tuiles
+                slots.acquire(threads * 2);
+
+                finishedAt = LocalDateTime.now();
+                finishedNanos = System.nanoTime();
+                state = State.COMPLETED;
+                persist();
+                log.info("Préchargement des tuiles terminé: {} téléchargées, {} déjà présentes, {} en échec",
+                        downloaded.get(), skipped.get(), failed.get());
+            } catch (InterruptedException | RejectedExecutionException e) {
+                Thread.currentThread().interrupt();
+                log.info("Préchargement des tuiles interrompu à la tuile {}/{}", watermark(), total);
+            }
+        }
+
+        private void process(long tileIndex, int z, int x, int y) {
+            boolean interrupted = false;
+            try {
+                if (mapService.hasTile(z, x, y)) {
+                    skipped.incrementAndGet();
+                } else {
+                    download(z, x, y);
+                }
+            } catch (InterruptedException e) {
+                // Arrêt en cours : la tuile reste à traiter lors de la reprise
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            } catch (RuntimeException e) {
+                // Archive illisible par exemple : la tuile est comptée en échec, le préchargement continue
+                failed.incrementAndGet();
+                log.warn("Erreur lors du préchargement de la tuile {}/{}/{}: {}", z, x, y, e.getMessage());
+            } finally {
+                // Sans libération, le coordinateur attendrait indéfiniment la fin des tuiles en cours ;
+                // à l'arrêt la tuile reste en cours pour ne pas être comptée comme traitée
+                if (!interrupted) {
+                    synchronized (inFlight) {
+                        inFlight.remove(tileIndex);
+                    }
+                    slots.release();
+                }
+            }
+
+            if (!interrupted && processed.incrementAndGet() % PERSIST_EVERY == 0) {
+                persist();
+            }
+        }
+
+        /**
+         * Télécharge la tuile ; un échec dû au disjoncteur ouvert met le préchargement
+         * en pause puis la tuile est retentée.
+         */
+        private void download(int z, int x, int y) throws InterruptedException {
+            while (true) {
+                awaitUpstream();
+                rateLimiter.acquire();
+                try {
+                    if (mapService.downloadTile(z, x, y)) {
+                        downloaded.incrementAndGet();
+                        return;
+                    }
+                    if (tileUpstreamClient.isAvailable()) {
+                        failed.incrementAndGet();
+                        return;
+                    }
+                } catch (Exception e) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                    if (tileUpstreamClient.isAvailable()) {
+                        failed.incrementAndGet();
+                        log.warn("Erreur lors du préchargement de la tuile {}/{}/{}: {}", z, x, y, e.getMessage());
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void awaitUpstream() throws InterruptedException {
+            if (tileUpstreamClient.isAvailable()) {
+                return;
+            }
+            if (state == State.RUNNING) {
+                state = State.PAUSED;
+                log.info("Préchargement des tuiles en pause : serveur de tuiles indisponible");
+                persist();
+            }
+            tileUpstreamClient.awaitAvailable();
+            if (state == State.PAUSED) {
+                state = State.RUNNING;
+                log.info("Reprise du préchargement des tuiles");
+            }
+        }
+
+        private long watermark() {
+            synchronized (inFlight) {
+                return inFlight.isEmpty() ? nextIndex : inFlight.first();
+            }
+        }
+
+        private synchronized void persist() {
+            SavedState saved = new SavedState(state, minZoom, maxZoom, state == State.COMPLETED ? total : watermark(),
+                    downloaded.get(), skipped.get(), failed.get(), startedAt, finishedAt);
+            writeState(saved);
+        }
+
+        private TilePrefetchStatusResponse toStatus() {
+            long done = resumeIndex + processed.get();
+            long end = state == State.COMPLETED ? finishedNanos : System.nanoTime();
+            double seconds = (end - startNanos) / 1_000_000_000.0;
+            return TilePrefetchStatusResponse.builder()
+                    .state(state)
+                    .minZoom(minZoom)
+                    .maxZoom(maxZoom)
+                    .totalTiles(total)
+                    .processedTiles(done)
+                    .remainingTiles(total - done)
+                    .downloadedTiles(downloaded.get())
+                    .skippedTiles(skipped.get())
+                    .failedTiles(failed.get())
+                    .tilesPerSecond(seconds > 0 ? processed.get() / seconds : 0.0)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+
+    private long countTiles(int minZoom, int maxZoom) {
+        long count = 0;
+        for (int z = minZoom; z <= maxZoom; z++) {
+            int[] range = tileRange(z);
+            count += (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1);
+        }
+        return count;
+    }
+
+    /**
+     * Tuiles couvrant la zone de la carte au zoom donné : {xMin, yMin, xMax, yMax}.
+     */
+    private int[] tileRange(int zoom) {
+        MapConfigResponse.BoundsDto bounds = mapService.getMapConfig().getBounds();
+        int[] nw = latLngToTile(bounds.getNorthLat(), bounds.getWestLng(), zoom);
+        int[] se = latLngToTile(bounds.getSouthLat(), bounds.getEastLng(), zoom);
+        return new int[]{nw[0], nw[1], se[0], se[1]};
+    }
+
+    private static int[] latLngToTile(double lat, double lng, int zoom) {
+        int n = 1 << zoom;
+        int x = (int) ((lng + 180.0) / 360.0 * n);
+        int y = (int) ((1.0 - Math.log(Math.tan(Math.toRadians(lat)) + 1 / Math.cos(Math.toRadians(lat))) / Math.PI) / 2.0 * n);
+        return new int[]{Math.min(n - 1, x), Math.min(n - 1, y)};
+    }
+
+    private SavedState readState() {
+        Path path = Paths.get(tilesDirectory, STATE_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(Files.readAllBytes(path), SavedState.class);
+        } catch (Exception e) {
+            log.warn("État du préchargement illisible ({}): {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeState(SavedState saved) {
+        Path path = Paths.get(tilesDirectory, STATE_FILE);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), STATE_FILE, ".tmp");
+            try {
+                Files.write(temp, objectMapper.writeValueAsBytes(saved));
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | JacksonException e) {
+            log.warn("Impossible d'enregistrer l'état du préchargement: {}", e.getMessage());
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
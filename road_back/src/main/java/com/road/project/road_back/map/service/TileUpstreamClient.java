@@ -0,0 +1,245 @@
+package com.road.project.road_back.map.service;
+
+import com.road.project.road_back.config.ConnectivityMonitor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Accès au serveur de tuiles amont (OpenStreetMap par défaut), protégé par un disjoncteur.
+ *
+ * Après app.map.upstream.failure-threshold échecs consécutifs (erreur réseau, 5xx, 429),
+ * le disjoncteur s'ouvre : les tuiles absentes sont refusées immédiatement au lieu
+ * d'attendre les timeouts. Une sonde en arrière-plan interroge le serveur avec un
+ * intervalle croissant et referme le disjoncteur dès qu'il répond. Les tuiles que le
+ * serveur ne fournit pas sont mémorisées quelques instants (cache négatif).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TileUpstreamClient {
+
+    private static final int MAX_NEGATIVE_ENTRIES = 10000;
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ConnectivityMonitor connectivityMonitor;
+
+    @Value("${app.map.tile-server-url:https://tile.openstreetmap.org}")
+    private String tileServerUrl;
+
+    @Value("${app.map.upstream.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${app.map.upstream.probe-initial-interval-ms:5000}")
+    private long probeInitialIntervalMs;
+
+    @Value("${app.map.upstream.probe-max-interval-ms:120000}")
+    private long probeMaxIntervalMs;
+
+    @Value("${app.map.upstream.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final Map<String, Long> missingUntil = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_NEGATIVE_ENTRIES;
+        }
+    };
+
+    private volatile boolean open;
+    private int consecutiveFailures;
+    private long probeIntervalMs;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tile-upstream-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Retour de la connexion Internet : sonder sans attendre la fin de l'intervalle
+        connectivityMonitor.addListener(online -> {
+            if (online && open) {
+                scheduler.execute(() -> probe(false));
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Vrai si les téléchargements sont autorisés (disjoncteur fermé).
+     */
+    public boolean isAvailable() {
+        return !open;
+    }
+
+    /**
+     * Attend que le disjoncteur soit fermé.
+     */
+    public synchronized void awaitAvailable() throws InterruptedException {
+        while (open) {
+            wait();
+        }
+    }
+
+    /**
+     * Télécharge une tuile. Retourne null si le serveur ne la fournit pas, si elle est
+     * dans le cache négatif ou si le disjoncteur est ouvert.
+     *
+     * Le corps est lu ici, et l'échange complet (en-têtes et corps) est borné par
+     * FETCH_TIMEOUT : un serveur qui cesse d'envoyer les données compte comme un échec.
+     */
+    public byte[] fetch(int z, int x, int y) throws IOException {
+        String key = z + "/" + x + "/" + y;
+        if (open || isKnownMissing(key)) {
+            return null;
+        }
+
+        CompletableFuture<HttpResponse<byte[]>> pending = httpClient.sendAsync(
+                tileRequest(z, x, y, FETCH_TIMEOUT), HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> response;
+        try {
+            response = pending.get(FETCH_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Téléchargement interrompu", e);
+        } catch (TimeoutException e) {
+            pending.cancel(true);
+            recordFailure();
+            throw new HttpTimeoutException("Tuile " + key + " non reçue en " + FETCH_TIMEOUT.toSeconds() + " s");
+        } catch (ExecutionException e) {
+            recordFailure();
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+
+        int status = response.statusCode();
+        if (status == 200) {
+            recordSuccess();
+            return response.body();
+        }
+
+        if (status >= 500 || status == 429) {
+            // Erreur du serveur, pas une tuile absente : elle pourra être redemandée
+            recordFailure();
+        } else {
+            recordSuccess();
+            markMissing(key);
+        }
+        return null;
+    }
+
+    private HttpRequest tileRequest(int z, int x, int y, Duration timeout) {
+        return HttpRequest.newBuilder(URI.create(String.format("%s/%d/%d/%d.png", tileServerUrl, z, x, y)))
+                .header("User-Agent", "RoadSignalingApp/1.0")
+                .timeout(timeout)
+                .GET()
+                .build();
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (!open && consecutiveFailures >= failureThreshold) {
+            open = true;
+            probeIntervalMs = probeInitialIntervalMs;
+            log.warn("Serveur de tuiles injoignable ({} échecs consécutifs) : téléchargements suspendus", consecutiveFailures);
+            scheduleProbe();
+        }
+    }
+
+    private void scheduleProbe() {
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(() -> probe(true), probeIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sonde de santé : la tuile 0/0/0 doit être servie pour refermer le disjoncteur.
+     * Seule la sonde planifiée se replanifie en cas d'échec.
+     */
+    private void probe(boolean reschedule) {
+        if (!open) {
+            return;
+        }
+        boolean healthy;
+        try {
+            HttpResponse<Void> response = httpClient.send(tileRequest(0, 0, 0, Duration.ofSeconds(3)),
+                    HttpResponse.BodyHandlers.discarding());
+            healthy = response.statusCode() == 200;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException e) {
+            healthy = false;
+        }
+
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            if (healthy) {
+                open = false;
+                consecutiveFailures = 0;
+                notifyAll();
+                log.info("Serveur de tuiles de nouveau joignable : téléchargements repris");
+            } else if (reschedule) {
+                probeIntervalMs = Math.min(probeIntervalMs * 2, probeMaxIntervalMs);
+                scheduleProbe();
+            }
+        }
+    }
+
+    private boolean isKnownMissing(String key) {
+        synchronized (missingUntil) {
+            Long until = missingUntil.get(key);
+            if (until == null) {
+                return false;
+            }
+            if (until <= System.currentTimeMillis()) {
+                missingUntil.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void markMissing(String key) {
+        synchronized (missingUntil) {
+            missingUntil.put(key, System.currentTimeMillis() + negativeTtlSeconds * 1000);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.road.project.road_back.map.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limiteur de débit à seau de jetons, partagé entre plusieurs threads.
+ *
+ * Le seau se remplit de {@code ratePerSecond} jetons par seconde jusqu'à {@code capacity} ;
+ * {@link #acquire()} bloque jusqu'à ce qu'un jeton soit disponible.
+ */
+public class TokenBucket {
+
+    private final double ratePerSecond;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Débit et capacité doivent être positifs");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) ((1 - tokens) / ratePerSecond * 1_000_000_000L);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1));
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerSecond / 1_000_000_000L);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,133 @@
+package com.road.project.road_back.map.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodeur minimal de tuiles vectorielles Mapbox (MVT 2.1, protobuf) pour des couches de points.
+ *
+ * Les positions sont exprimées en latitude / longitude et projetées en Web Mercator
+ * dans le repère de la tuile (z, x, y) ; les attributs acceptent des chaînes et des entiers.
+ */
+public final class VectorTileEncoder {
+
+    public static final int EXTENT = 4096;
+
+    private static final int GEOM_POINT = 1;
+    private static final int CMD_MOVE_TO_ONE = (1 << 3) | 1;
+
+    private final int z;
+    private final int x;
+    private final int y;
+    private final Map<String, Layer> layers = new LinkedHashMap<>();
+
+    public VectorTileEncoder(int z, int x, int y) {
+        this.z = z;
+        this.x = x;
+        this.y = y;
+    }
+
+    private static class Layer {
+        private final Map<String, Integer> keys = new LinkedHashMap<>();
+        private final Map<Object, Integer> values = new LinkedHashMap<>();
+        private final List<byte[]> features = new ArrayList<>();
+    }
+
+    /**
+     * Ajoute un point à la couche ; les attributs null sont ignorés.
+     */
+    public void addPoint(String layerName, long id, double latitude, double longitude, Map<String, Object> attributes) {
+        Layer layer = layers.computeIfAbsent(layerName, n -> new Layer());
+
+        ByteArrayOutputStream tags = new ByteArrayOutputStream();
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            if (attribute.getValue() == null) {
+                continue;
+            }
+            Object value = attribute.getValue() instanceof Number n ? (Object) n.longValue() : attribute.getValue().toString();
+            writeVarint(tags, layer.keys.computeIfAbsent(attribute.getKey(), k -> layer.keys.size()));
+            writeVarint(tags, layer.values.computeIfAbsent(value, v -> layer.values.size()));
+        }
+
+        double scale = (double) EXTENT * (1L << z);
+        double mercatorY = Math.log(Math.tan(Math.toRadians(latitude)) + 1 / Math.cos(Math.toRadians(latitude)));
+        long px = Math.round(((longitude + 180) / 360 - (double) x / (1L << z)) * scale);
+        long py = Math.round(((1 - mercatorY / Math.PI) / 2 - (double) y / (1L << z)) * scale);
+
+        ByteArrayOutputStream geometry = new ByteArrayOutputStream();
+        writeVarint(geometry, CMD_MOVE_TO_ONE);
+        writeVarint(geometry, zigzag(px));
+        writeVarint(geometry, zigzag(py));
+
+        ByteArrayOutputStream feature = new ByteArrayOutputStream();
+        writeTag(feature, 1, 0);
+        writeVarint(feature, id);
+        writeBytes(feature, 2, tags.toByteArray());
+        writeTag(feature, 3, 0);
+        writeVarint(feature, GEOM_POINT);
+        writeBytes(feature, 4, geometry.toByteArray());
+        layer.features.add(feature.toByteArray());
+    }
+
+    /**
+     * Sérialise la tuile ; une tuile sans point donne un tableau vide.
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream tile = new ByteArrayOutputStream();
+        for (Map.Entry<String, Layer> entry : layers.entrySet()) {
+            Layer layer = entry.getValue();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            writeTag(out, 15, 0);
+            writeVarint(out, 2);
+            writeBytes(out, 1, entry.getKey().getBytes(StandardCharsets.UTF_8));
+            for (byte[] feature : layer.features) {
+                writeBytes(out, 2, feature);
+            }
+            for (String key : layer.keys.keySet()) {
+                writeBytes(out, 3, key.getBytes(StandardCharsets.UTF_8));
+            }
+            for (Object value : layer.values.keySet()) {
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                if (value instanceof Long l) {
+                    writeTag(encoded, 4, 0);
+                    writeVarint(encoded, l);
+                } else {
+                    writeBytes(encoded, 1, ((String) value).getBytes(StandardCharsets.UTF_8));
+                }
+                writeBytes(out, 4, encoded.toByteArray());
+            }
+            writeTag(out, 5, 0);
+            writeVarint(out, EXTENT);
+
+            writeBytes(tile, 3, out.toByteArray());
+        }
+        return tile.toByteArray();
+    }
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, int field, int wireType) {
+        writeVarint(out, ((long) field << 3) | wireType);
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, int field, byte[] bytes) {
+        writeTag(out, field, 2);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
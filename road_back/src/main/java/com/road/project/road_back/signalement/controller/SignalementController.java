@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -17,6 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -26,27 +28,36 @@ import java.util.Map;
 @Tag(name = "Signalements", description = "API de gestion des signalements de travaux routiers")
 public class SignalementController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
+
     private final SignalementService signalementService;
 
     @GetMapping
-    @Operation(summary = "Récupérer tous les signalements (paginés)")
+    @Operation(summary = "Récupérer tous les signalements (paginés)",
+            description = "Le jeton de la page suivante est renvoyé dans l'en-tête " + NEXT_CURSOR_HEADER
+                    + " et se passe dans le paramètre cursor.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liste des signalements")
     })
     public ResponseEntity<Page<SignalementResponse>> getAllSignalements(
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(signalementService.getAllSignalements(pageable));
+            @PageableDefault(size = 20) Pageable pageable,
+            @RequestParam(required = false) String cursor) {
+        return toPageResponse(signalementService.getAllSignalements(pageable, cursor));
     }
 
     @GetMapping("/statut/{statut}")
-    @Operation(summary = "Récupérer les signalements par statut")
+    @Operation(summary = "Récupérer les signalements par statut",
+            description = "Le jeton de la page suivante est renvoyé dans l'en-tête " + NEXT_CURSOR_HEADER
+                    + " et se passe dans le paramètre cursor.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liste des signalements filtrés")
     })
     public ResponseEntity<Page<SignalementResponse>> getSignalementsByStatut(
             @PathVariable StatutSignalement statut,
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(signalementService.getSignalementsByStatut(statut, pageable));
+            @PageableDefault(size = 20) Pageable pageable,
+            @RequestParam(required = false) String cursor) {
+        return toPageResponse(signalementService.getSignalementsByStatut(statut, pageable, cursor));
     }
 
     @GetMapping("/{id}")
@@ -72,6 +83,51 @@ public class SignalementController {
         return ResponseEntity.ok(signalementService.getSignalementsByBounds(minLat, maxLat, minLng, maxLng));
     }
 
+    @GetMapping("/nearby")
+    @Operation(summary = "Signalements les plus proches d'une position",
+            description = "Triés du plus proche au plus éloigné ; radius (en mètres) limite la recherche")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Liste des signalements proches"),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides")
+    })
+    public ResponseEntity<List<SignalementResponse>> getSignalementsNearby(
+            @RequestParam Double lat,
+            @RequestParam Double lng,
+            @RequestParam(required = false) Double radius,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(signalementService.getSignalementsNearby(lat, lng, radius, limit));
+    }
+
+    @GetMapping("/bounds/points")
+    @Operation(summary = "Positions et statuts des signalements dans une zone géographique",
+            description = "Réponse légère (id, coordonnées, statut) servie par l'index spatial en mémoire")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Liste des positions dans la zone")
+    })
+    public ResponseEntity<List<SignalementLocationResponse>> getSignalementLocationsByBounds(
+            @RequestParam Double minLat,
+            @RequestParam Double maxLat,
+            @RequestParam Double minLng,
+            @RequestParam Double maxLng) {
+        return ResponseEntity.ok(signalementService.getSignalementLocationsByBounds(minLat, maxLat, minLng, maxLng));
+    }
+
+    @GetMapping("/clusters")
+    @Operation(summary = "Regroupements des signalements dans une zone géographique",
+            description = "Une entrée par cellule de la grille du niveau de zoom : nombre, centroïde et répartition par statut")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Liste des regroupements dans la zone"),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides")
+    })
+    public ResponseEntity<List<SignalementClusterResponse>> getSignalementClusters(
+            @RequestParam Double minLat,
+            @RequestParam Double maxLat,
+            @RequestParam Double minLng,
+            @RequestParam Double maxLng,
+            @RequestParam int zoom) {
+        return ResponseEntity.ok(signalementService.getSignalementClusters(minLat, maxLat, minLng, maxLng, zoom));
+    }
+
     @PostMapping
     @Operation(summary = "Créer un nouveau signalement", security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = {
@@ -121,6 +177,18 @@ public class SignalementController {
         return ResponseEntity.ok(signalementService.getStats());
     }
 
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('MANAGER')")
+    @Operation(summary = "Reconstruire les statistiques depuis la base (Manager)", security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistiques reconstruites"),
+            @ApiResponse(responseCode = "401", description = "Non authentifié"),
+            @ApiResponse(responseCode = "403", description = "Accès refusé")
+    })
+    public ResponseEntity<SignalementStatsResponse> rebuildStats() {
+        return ResponseEntity.ok(signalementService.rebuildStats());
+    }
+
     @PostMapping("/sync")
     @Operation(summary = "Synchroniser les signalements offline", security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = {
@@ -131,6 +199,25 @@ public class SignalementController {
         return ResponseEntity.ok(signalementService.syncSignalements(request));
     }
 
+    @GetMapping(value = "/sync/stream", produces = NDJSON)
+    @Operation(summary = "Flux NDJSON des modifications serveur depuis un watermark",
+            description = "Sans paramètre: tous les signalements actifs. Avec afterSeq (et afterId pour reprendre "
+                    + "un flux interrompu): les modifications postérieures, suppressions comprises. "
+                    + "La dernière ligne (type WATERMARK) donne le afterSeq de la prochaine synchronisation.",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Flux des modifications"),
+            @ApiResponse(responseCode = "401", description = "Non authentifié")
+    })
+    public void streamSync(
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(required = false) Long afterId,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        signalementService.streamChanges(afterSeq, afterId, response.getOutputStream());
+    }
+
     @GetMapping("/config/prix-m2")
     @Operation(summary = "Récupérer le prix par m² forfaitaire")
     @ApiResponses(value = {
@@ -176,5 +263,12 @@ public class SignalementController {
     public ResponseEntity<ConfigurationResponse> updateConfiguration(@Valid @RequestBody ConfigurationRequest request) {
         return ResponseEntity.ok(signalementService.updateConfiguration(request));
     }
-}
 
+    private ResponseEntity<Page<SignalementResponse>> toPageResponse(CursorPage<SignalementResponse> cursorPage) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (cursorPage.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, cursorPage.getNextCursor());
+        }
+        return builder.body(cursorPage.getPage());
+    }
+}
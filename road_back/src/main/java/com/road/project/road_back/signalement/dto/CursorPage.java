@@ -0,0 +1,21 @@
+package com.road.project.road_back.signalement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+/**
+ * Page de résultats accompagnée d'un jeton de continuation opaque.
+ * Le jeton est null lorsqu'il n'y a pas de page suivante ou que la source ne le supporte pas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+
+    private Page<T> page;
+    private String nextCursor;
+}
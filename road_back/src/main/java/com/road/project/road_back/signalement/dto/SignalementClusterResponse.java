@@ -0,0 +1,25 @@
+package com.road.project.road_back.signalement.dto;
+
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO pour un regroupement de signalements sur la carte (une cellule de la grille du niveau de zoom).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SignalementClusterResponse {
+
+    private Double latitude; // centroïde des signalements de la cellule
+    private Double longitude;
+    private Long count;
+    private Map<StatutSignalement, Long> parStatut;
+    private Long signalementId; // renseigné quand la cellule ne contient qu'un signalement
+}
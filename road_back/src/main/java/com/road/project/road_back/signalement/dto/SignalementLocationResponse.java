@@ -0,0 +1,22 @@
+package com.road.project.road_back.signalement.dto;
+
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO léger pour l'affichage des signalements sur la carte (position et statut).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SignalementLocationResponse {
+
+    private Long id;
+    private Double latitude;
+    private Double longitude;
+    private StatutSignalement statut;
+}
@@ -0,0 +1,30 @@
+package com.road.project.road_back.signalement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ligne d'un flux de synchronisation NDJSON.
+ *
+ * Les lignes UPSERT et DELETE portent la position (seq, id) du signalement ; un client
+ * interrompu reprend en passant la dernière position reçue (afterSeq, afterId).
+ * La dernière ligne, de type WATERMARK, donne le seq à utiliser pour la prochaine synchronisation.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncChangeEvent {
+
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+    public static final String WATERMARK = "WATERMARK";
+
+    private String type;
+    private Long seq;
+    private Long id;
+    private String syncId;
+    private SignalementResponse signalement;
+}
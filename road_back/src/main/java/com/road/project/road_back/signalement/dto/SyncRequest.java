@@ -18,6 +18,7 @@ import java.util.List;
 public class SyncRequest {
 
     private LocalDateTime lastSyncTime;
+    private Long lastChangeSeq; // Watermark de la synchronisation précédente (prioritaire sur lastSyncTime)
     private List<SignalementRequest> signalements;
     private List<String> deletedSyncIds;
 }
@@ -23,5 +23,6 @@ public class SyncResponse {
     private List<String> deleted;
     private List<SignalementResponse> serverChanges;
     private int conflictsResolved;
+    private Long changeWatermark; // À renvoyer dans lastChangeSeq lors de la prochaine synchronisation
 }
 
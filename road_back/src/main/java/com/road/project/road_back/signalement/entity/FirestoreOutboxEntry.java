@@ -0,0 +1,52 @@
+package com.road.project.road_back.signalement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Écriture Firestore en attente (outbox), enregistrée dans la même transaction
+ * que la modification locale et envoyée par {@code FirestoreOutboxWorker}.
+ */
+@Entity
+@Table(name = "firestore_outbox", indexes = {
+        @Index(name = "idx_firestore_outbox_next_attempt", columnList = "next_attempt_at"),
+        @Index(name = "idx_firestore_outbox_signalement", columnList = "signalement_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FirestoreOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "signalement_id", nullable = false)
+    private Long signalementId;
+
+    @Column(name = "sync_id", nullable = false)
+    private String syncId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxOperation operation;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,10 @@
+package com.road.project.road_back.signalement.entity;
+
+/**
+ * Opération Firestore à rejouer pour un signalement.
+ */
+public enum OutboxOperation {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -14,7 +14,10 @@ import java.time.LocalDateTime;
  * Entité représentant un signalement de travaux routiers.
  */
 @Entity
-@Table(name = "signalements")
+@Table(name = "signalements", indexes = {
+        @Index(name = "idx_signalements_change_seq", columnList = "change_seq")
+})
+@EntityListeners(SignalementEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -108,6 +111,9 @@ public class Signalement {
     @Column(name = "local_updated_at")
     private LocalDateTime localUpdatedAt; // Pour résolution de conflits
 
+    @Column(name = "change_seq")
+    private Long changeSeq; // Numéro de séquence monotone de la dernière modification (watermark de sync)
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -119,5 +125,8 @@ public class Signalement {
     @Column(name = "is_active")
     @Builder.Default
     private Boolean isActive = true;
+
+    @Transient
+    private SignalementSnapshot loadedState; // Dernier état persisté, utilisé par SignalementEntityListener
 }
 
@@ -0,0 +1,65 @@
+package com.road.project.road_back.signalement.entity;
+
+import com.road.project.road_back.signalement.service.SignalementChangePublisher;
+import com.road.project.road_back.signalement.service.SignalementChangeSequence;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Listener JPA qui diffuse les modifications de signalements via
+ * {@link SignalementChangePublisher} après validation de la transaction.
+ *
+ * L'état chargé est mémorisé dans l'entité (@PostLoad) pour calculer le delta
+ * avant / après à chaque flush. Chaque écriture reçoit aussi un nouveau numéro
+ * de séquence de modification.
+ */
+public class SignalementEntityListener {
+
+    private final SignalementChangePublisher changePublisher;
+    private final SignalementChangeSequence changeSequence;
+
+    public SignalementEntityListener(SignalementChangePublisher changePublisher,
+                                     SignalementChangeSequence changeSequence) {
+        this.changePublisher = changePublisher;
+        this.changeSequence = changeSequence;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void onWrite(Signalement signalement) {
+        signalement.setChangeSeq(changeSequence.next());
+    }
+
+    @PostLoad
+    public void onLoad(Signalement signalement) {
+        signalement.setLoadedState(SignalementSnapshot.of(signalement));
+    }
+
+    @PostPersist
+    public void onPersist(Signalement signalement) {
+        SignalementSnapshot after = SignalementSnapshot.of(signalement);
+        signalement.setLoadedState(after);
+        changePublisher.publish(null, after);
+    }
+
+    @PostUpdate
+    public void onUpdate(Signalement signalement) {
+        SignalementSnapshot before = signalement.getLoadedState();
+        SignalementSnapshot after = SignalementSnapshot.of(signalement);
+        signalement.setLoadedState(after);
+        changePublisher.publish(before, after);
+    }
+
+    @PostRemove
+    public void onRemove(Signalement signalement) {
+        SignalementSnapshot before = signalement.getLoadedState() != null
+                ? signalement.getLoadedState()
+                : SignalementSnapshot.of(signalement);
+        signalement.setLoadedState(null);
+        changePublisher.publish(before, null);
+    }
+}
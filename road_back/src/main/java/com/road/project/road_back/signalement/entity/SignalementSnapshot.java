@@ -0,0 +1,56 @@
+package com.road.project.road_back.signalement.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Photographie immuable des champs d'un signalement utilisés par les vues dérivées
+ * (statistiques, index en mémoire, caches).
+ */
+public record SignalementSnapshot(
+        Long id,
+        Boolean isActive,
+        StatutSignalement statut,
+        Double latitude,
+        Double longitude,
+        Integer niveau,
+        String priorite,
+        Double surfaceImpactee,
+        BigDecimal budget,
+        Integer pourcentageAvancement,
+        String entrepriseResponsable,
+        LocalDateTime dateNouveau,
+        LocalDateTime dateEnCours,
+        LocalDateTime dateTermine) {
+
+    public static SignalementSnapshot of(Signalement s) {
+        return new SignalementSnapshot(
+                s.getId(),
+                s.getIsActive(),
+                s.getStatut(),
+                s.getLatitude(),
+                s.getLongitude(),
+                s.getNiveau(),
+                s.getPriorite(),
+                s.getSurfaceImpactee(),
+                s.getBudget(),
+                s.getPourcentageAvancement(),
+                s.getEntrepriseResponsable(),
+                s.getDateNouveau(),
+                s.getDateEnCours(),
+                s.getDateTermine());
+    }
+
+    public boolean active() {
+        return Boolean.TRUE.equals(isActive);
+    }
+
+    /**
+     * Copie de cet état après suppression logique.
+     */
+    public SignalementSnapshot deactivated() {
+        return new SignalementSnapshot(id, false, statut, latitude, longitude, niveau, priorite,
+                surfaceImpactee, budget, pourcentageAvancement, entrepriseResponsable,
+                dateNouveau, dateEnCours, dateTermine);
+    }
+}
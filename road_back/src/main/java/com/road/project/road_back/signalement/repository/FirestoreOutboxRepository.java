@@ -0,0 +1,23 @@
+package com.road.project.road_back.signalement.repository;
+
+import com.road.project.road_back.signalement.entity.FirestoreOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository pour l'outbox des écritures Firestore.
+ */
+@Repository
+public interface FirestoreOutboxRepository extends JpaRepository<FirestoreOutboxEntry, Long> {
+
+    @Query("SELECT o FROM FirestoreOutboxEntry o WHERE o.nextAttemptAt <= :now ORDER BY o.id")
+    List<FirestoreOutboxEntry> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    boolean existsBySignalementId(Long signalementId);
+}
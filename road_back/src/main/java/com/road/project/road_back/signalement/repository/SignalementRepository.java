@@ -1,18 +1,25 @@
 package com.road.project.road_back.signalement.repository;
 
 import com.road.project.road_back.signalement.entity.Signalement;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
 import com.road.project.road_back.signalement.entity.StatutSignalement;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository pour l'entité Signalement.
@@ -20,58 +27,106 @@ import java.util.Optional;
 @Repository
 public interface SignalementRepository extends JpaRepository<Signalement, Long> {
 
+    // Les listes chargent l'auteur (createdBy) dans la même requête que les signalements
+
+    @EntityGraph(attributePaths = "createdBy")
     Page<Signalement> findByIsActiveTrue(Pageable pageable);
 
+    @EntityGraph(attributePaths = "createdBy")
     Page<Signalement> findByStatutAndIsActiveTrue(StatutSignalement statut, Pageable pageable);
 
     List<Signalement> findByCreatedByIdAndIsActiveTrue(Long userId);
 
     Optional<Signalement> findBySyncIdAndIsActiveTrue(String syncId);
 
-    @Query("SELECT s FROM Signalement s WHERE s.isActive = true AND " +
-           "s.latitude BETWEEN :minLat AND :maxLat AND " +
-           "s.longitude BETWEEN :minLng AND :maxLng")
-    List<Signalement> findByBounds(
-            @Param("minLat") Double minLat,
-            @Param("maxLat") Double maxLat,
-            @Param("minLng") Double minLng,
-            @Param("maxLng") Double maxLng);
-
-    @Query("SELECT s FROM Signalement s WHERE s.isActive = true AND s.updatedAt > :since")
+    List<Signalement> findBySyncIdInAndIsActiveTrue(Collection<String> syncIds);
+
+    @EntityGraph(attributePaths = {"createdBy", "updatedBy"})
+    List<Signalement> findWithUsersByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "createdBy")
+    List<Signalement> findWithCreatorByIdIn(Collection<Long> ids);
+
+    /**
+     * Marque le signalement comme synchronisé s'il n'a plus d'écriture Firestore en attente.
+     * Requête directe : ne modifie ni updatedAt ni le numéro de séquence.
+     */
+    @Modifying
+    @Query("UPDATE Signalement s SET s.isSynced = true WHERE s.id = :id " +
+           "AND NOT EXISTS (SELECT o.id FROM FirestoreOutboxEntry o WHERE o.signalementId = :id)")
+    int markSyncedIfNoPendingOutbox(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Signalement s SET s.isActive = false, s.updatedAt = :now, s.changeSeq = :changeSeq " +
+           "WHERE s.isActive = true AND s.syncId IN :syncIds")
+    int softDeleteBySyncIds(@Param("syncIds") Collection<String> syncIds,
+                            @Param("now") LocalDateTime now,
+                            @Param("changeSeq") Long changeSeq);
+
+    // Requêtes PostGIS sur la colonne location (voir SignalementGeoSchema) : PostgreSQL uniquement.
+    // Elles ne retournent que les ids, les signalements sont ensuite chargés avec findWithCreatorByIdIn.
+
+    @Query(value = "SELECT s.id FROM signalements s WHERE s.is_active = true " +
+                   "AND s.location && ST_MakeEnvelope(:minLng, :minLat, :maxLng, :maxLat, 4326)::geography " +
+                   "AND s.latitude BETWEEN :minLat AND :maxLat AND s.longitude BETWEEN :minLng AND :maxLng",
+           nativeQuery = true)
+    List<Long> findIdsWithinBox(
+            @Param("minLat") double minLat,
+            @Param("maxLat") double maxLat,
+            @Param("minLng") double minLng,
+            @Param("maxLng") double maxLng);
+
+    @Query(value = "SELECT s.id FROM signalements s WHERE s.is_active = true " +
+                   "AND ST_DWithin(s.location, ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)::geography, :radius) " +
+                   "ORDER BY s.location <-> ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)::geography " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findIdsWithinRadius(
+            @Param("lat") double lat,
+            @Param("lng") double lng,
+            @Param("radius") double radiusMeters,
+            @Param("limit") int limit);
+
+    @Query(value = "SELECT s.id FROM signalements s WHERE s.is_active = true " +
+                   "ORDER BY s.location <-> ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)::geography " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findIdsNearest(
+            @Param("lat") double lat,
+            @Param("lng") double lng,
+            @Param("limit") int limit);
+
+    @Query("SELECT s FROM Signalement s LEFT JOIN FETCH s.createdBy WHERE s.isActive = true AND s.updatedAt > :since")
     List<Signalement> findModifiedSince(@Param("since") LocalDateTime since);
 
-    // Statistiques
-    @Query("SELECT COUNT(s) FROM Signalement s WHERE s.isActive = true")
-    Long countActive();
-
-    @Query("SELECT COUNT(s) FROM Signalement s WHERE s.isActive = true AND s.statut = :statut")
-    Long countByStatut(@Param("statut") StatutSignalement statut);
-
-    @Query("SELECT COALESCE(SUM(s.surfaceImpactee), 0) FROM Signalement s WHERE s.isActive = true")
-    Double sumSurfaceImpactee();
-
-    @Query("SELECT COALESCE(SUM(s.budget), 0) FROM Signalement s WHERE s.isActive = true")
-    BigDecimal sumBudget();
-
-    @Query("SELECT COALESCE(AVG(s.pourcentageAvancement), 0) FROM Signalement s WHERE s.isActive = true")
-    Double avgPourcentageAvancement();
-
-    @Query("SELECT s.entrepriseResponsable, COUNT(s) FROM Signalement s " +
-           "WHERE s.isActive = true AND s.entrepriseResponsable IS NOT NULL " +
-           "GROUP BY s.entrepriseResponsable ORDER BY COUNT(s) DESC")
-    List<Object[]> countByEntreprise();
-
-    @Query("SELECT s.statut, COUNT(s) FROM Signalement s WHERE s.isActive = true GROUP BY s.statut")
-    List<Object[]> countGroupByStatut();
-
-    // Requêtes pour les statistiques de traitement
-    @Query("SELECT s FROM Signalement s WHERE s.isActive = true AND s.dateNouveau IS NOT NULL AND s.dateEnCours IS NOT NULL")
-    List<Signalement> findWithNouveauToEnCoursDates();
-
-    @Query("SELECT s FROM Signalement s WHERE s.isActive = true AND s.dateEnCours IS NOT NULL AND s.dateTermine IS NOT NULL")
-    List<Signalement> findWithEnCoursToTermineDates();
-
-    @Query("SELECT s FROM Signalement s WHERE s.isActive = true AND s.dateNouveau IS NOT NULL AND s.dateTermine IS NOT NULL")
-    List<Signalement> findWithNouveauToTermineDates();
+    // Synchronisation par numéro de séquence (position = changeSeq, id)
+    @Query("SELECT s FROM Signalement s LEFT JOIN FETCH s.createdBy WHERE s.isActive = true " +
+           "AND s.changeSeq > :afterSeq AND s.changeSeq <= :upToSeq")
+    List<Signalement> findChangedBetween(@Param("afterSeq") Long afterSeq, @Param("upToSeq") Long upToSeq);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT s FROM Signalement s LEFT JOIN FETCH s.createdBy " +
+           "WHERE s.isActive = true AND s.changeSeq <= :upToSeq " +
+           "AND (s.changeSeq > :afterSeq OR (s.changeSeq = :afterSeq AND s.id > :afterId)) " +
+           "ORDER BY s.changeSeq ASC, s.id ASC")
+    Stream<Signalement> streamActiveUpTo(@Param("afterSeq") Long afterSeq,
+                                         @Param("afterId") Long afterId,
+                                         @Param("upToSeq") Long upToSeq);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT s FROM Signalement s LEFT JOIN FETCH s.createdBy WHERE s.changeSeq <= :upToSeq " +
+           "AND (s.changeSeq > :afterSeq OR (s.changeSeq = :afterSeq AND s.id > :afterId)) " +
+           "ORDER BY s.changeSeq ASC, s.id ASC")
+    Stream<Signalement> streamChangedUpTo(@Param("afterSeq") Long afterSeq,
+                                          @Param("afterId") Long afterId,
+                                          @Param("upToSeq") Long upToSeq);
+
+    // Reconstruction des statistiques incrémentales
+    @Query("SELECT new com.road.project.road_back.signalement.entity.SignalementSnapshot(" +
+           "s.id, s.isActive, s.statut, s.latitude, s.longitude, s.niveau, s.priorite, " +
+           "s.surfaceImpactee, s.budget, s.pourcentageAvancement, s.entrepriseResponsable, " +
+           "s.dateNouveau, s.dateEnCours, s.dateTermine) " +
+           "FROM Signalement s WHERE s.isActive = true")
+    List<SignalementSnapshot> findActiveSnapshots();
 }
 
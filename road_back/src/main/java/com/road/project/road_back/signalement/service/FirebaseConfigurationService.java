@@ -3,18 +3,21 @@ package com.road.project.road_back.signalement.service;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.road.project.road_back.config.ConnectivityMonitor;
 import com.road.project.road_back.config.FirebaseConfig;
 import com.road.project.road_back.signalement.entity.Configuration;
 import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -23,6 +26,9 @@ import java.util.concurrent.TimeoutException;
  * Service pour gérer les configurations dans Firebase Firestore.
  *
  * Collection Firestore: configurations
+ *
+ * Les configurations sont répliquées en mémoire par un listener temps réel ;
+ * tant qu'il est à jour, les lectures ne font pas de requête réseau.
  */
 @Service
 @Slf4j
@@ -30,23 +36,86 @@ import java.util.concurrent.TimeoutException;
 public class FirebaseConfigurationService {
 
     private final FirebaseConfig firebaseConfig;
+    private final ConnectivityMonitor connectivityMonitor;
 
     private static final String CONFIGURATIONS_COLLECTION = "configurations";
     private static final int TIMEOUT_SECONDS = 10;
 
+    private final Map<String, FirebaseConfigurationData> replica = new ConcurrentHashMap<>();
+    private volatile boolean replicaReady;
+    private ListenerRegistration replicaRegistration;
+
     /**
      * Vérifie si une connexion Internet est disponible.
+     * L'état de la connexion provient du cache de {@link ConnectivityMonitor}.
      */
     public boolean isOnline() {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress("8.8.8.8", 53), 3000);
-            return firebaseConfig.isFirebaseInitialized();
-        } catch (Exception e) {
-            log.debug("Pas de connexion Internet détectée: {}", e.getMessage());
-            return false;
+        return connectivityMonitor.isOnline() && firebaseConfig.isFirebaseInitialized();
+    }
+
+    // ==================== RÉPLIQUE TEMPS RÉEL ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReplica() {
+        connectivityMonitor.addListener(online -> {
+            if (online) {
+                ensureReplicaListener();
+            }
+        });
+        ensureReplicaListener();
+    }
+
+    @PreDestroy
+    public synchronized void stopReplica() {
+        if (replicaRegistration != null) {
+            replicaRegistration.remove();
+            replicaRegistration = null;
         }
     }
 
+    private boolean replicaAvailable() {
+        if (replicaReady) {
+            return true;
+        }
+        ensureReplicaListener();
+        return false;
+    }
+
+    private synchronized void ensureReplicaListener() {
+        if (replicaRegistration != null || !isOnline()) {
+            return;
+        }
+
+        Firestore firestore = getFirestore();
+        if (firestore == null) return;
+
+        replicaRegistration = firestore.collection(CONFIGURATIONS_COLLECTION)
+                .addSnapshotListener((snapshot, error) -> {
+                    if (error != null) {
+                        log.warn("Listener des configurations interrompu: {}", error.getMessage());
+                        onReplicaListenerFailed();
+                        return;
+                    }
+                    if (snapshot == null) return;
+
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        QueryDocumentSnapshot doc = change.getDocument();
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            replica.remove(doc.getId());
+                        } else {
+                            replica.put(doc.getId(), mapDocumentToConfigurationData(doc));
+                        }
+                    }
+                    replicaReady = true;
+                });
+    }
+
+    private synchronized void onReplicaListenerFailed() {
+        replicaRegistration = null;
+        replicaReady = false;
+        replica.clear();
+    }
+
     /**
      * Récupère le Firestore.
      */
@@ -104,6 +173,10 @@ public class FirebaseConfigurationService {
     public Optional<FirebaseConfigurationData> getConfigurationByCle(String cle) {
         if (!isOnline() || cle == null) return Optional.empty();
 
+        if (replicaAvailable()) {
+            return Optional.ofNullable(replica.get(cle));
+        }
+
         Firestore firestore = getFirestore();
         if (firestore == null) return Optional.empty();
 
@@ -131,6 +204,10 @@ public class FirebaseConfigurationService {
     public List<FirebaseConfigurationData> getAllConfigurations() {
         if (!isOnline()) return Collections.emptyList();
 
+        if (replicaAvailable()) {
+            return new ArrayList<>(replica.values());
+        }
+
         Firestore firestore = getFirestore();
         if (firestore == null) return Collections.emptyList();
 
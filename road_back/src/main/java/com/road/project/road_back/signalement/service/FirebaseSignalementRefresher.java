@@ -0,0 +1,172 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.entity.Signalement;
+import com.road.project.road_back.signalement.repository.SignalementRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Rafraîchissement en arrière-plan des signalements locaux depuis Firebase.
+ *
+ * La lecture d'un signalement ne fait pas d'appel Firebase : elle demande un
+ * rafraîchissement, exécuté au plus une fois par signalement et par durée de fraîcheur
+ * (app.signalement.refresh-ttl-seconds) sur un pool borné. Seuls les champs qui diffèrent
+ * sont écrits, et un signalement dont les modifications locales n'ont pas encore été
+ * envoyées (isSynced = false) n'est pas écrasé.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FirebaseSignalementRefresher {
+
+    private static final int MAX_TRACKED = 10_000;
+
+    private final SignalementRepository signalementRepository;
+    private final FirebaseSignalementService firebaseSignalementService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.signalement.refresh-ttl-seconds:60}")
+    private long refreshTtlSeconds;
+
+    @Value("${app.signalement.refresh-threads:2}")
+    private int refreshThreads;
+
+    private final Map<Long, Long> lastRefresh = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "signalement-refresh-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // File pleine : le rafraîchissement est simplement abandonné
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Programme le rafraîchissement du signalement si sa dernière vérification
+     * date de plus que la durée de fraîcheur.
+     */
+    public void requestRefresh(Signalement signalement) {
+        if (signalement.getSyncId() == null
+                || !Boolean.TRUE.equals(signalement.getIsSynced())
+                || !firebaseSignalementService.isOnline()) {
+            return;
+        }
+
+        Long id = signalement.getId();
+        String syncId = signalement.getSyncId();
+        long now = System.currentTimeMillis();
+        long ttlMs = refreshTtlSeconds * 1000;
+
+        // Réserver le créneau : une seule requête Firebase par signalement et par durée de fraîcheur
+        Long previous = lastRefresh.get(id);
+        if (previous != null && now - previous < ttlMs) {
+            return;
+        }
+        boolean reserved = previous == null
+                ? lastRefresh.putIfAbsent(id, now) == null
+                : lastRefresh.replace(id, previous, now);
+        if (!reserved) {
+            return;
+        }
+
+        if (lastRefresh.size() > MAX_TRACKED) {
+            lastRefresh.values().removeIf(t -> now - t >= ttlMs);
+        }
+        executor.execute(() -> refresh(id, syncId));
+    }
+
+    private void refresh(Long id, String syncId) {
+        Optional<FirebaseSignalementService.FirebaseSignalementData> firebaseData =
+                firebaseSignalementService.getSignalementBySyncId(syncId);
+        if (firebaseData.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+                signalementRepository.findById(id)
+                        .filter(s -> Boolean.TRUE.equals(s.getIsSynced()))
+                        .ifPresent(local -> {
+                            if (applyFirebaseData(local, firebaseData.get())) {
+                                signalementRepository.save(local);
+                                log.info("Signalement {} mis à jour depuis Firebase", syncId);
+                            }
+                        }));
+    }
+
+    /**
+     * Copie les données Firebase dans le signalement local.
+     *
+     * @return true si au moins un champ a changé
+     */
+    private boolean applyFirebaseData(Signalement local, FirebaseSignalementService.FirebaseSignalementData fb) {
+        boolean changed = false;
+        changed |= copy(local.getTitre(), fb.getTitre(), local::setTitre);
+        changed |= copy(local.getDescription(), fb.getDescription(), local::setDescription);
+        changed |= copy(local.getLatitude(), fb.getLatitude(), local::setLatitude);
+        changed |= copy(local.getLongitude(), fb.getLongitude(), local::setLongitude);
+        changed |= copy(local.getAdresse(), fb.getAdresse(), local::setAdresse);
+        changed |= copy(local.getStatut(), fb.getStatut(), local::setStatut);
+        changed |= copy(local.getSurfaceImpactee(), fb.getSurfaceImpactee(), local::setSurfaceImpactee);
+        changed |= copy(local.getNiveau(), fb.getNiveau(), local::setNiveau);
+        changed |= copyBudget(local, fb.getBudget());
+        changed |= copy(local.getEntrepriseResponsable(), fb.getEntrepriseResponsable(), local::setEntrepriseResponsable);
+        changed |= copy(local.getDateDebut(), fb.getDateDebut(), local::setDateDebut);
+        changed |= copy(local.getDateFinPrevue(), fb.getDateFinPrevue(), local::setDateFinPrevue);
+        changed |= copy(local.getDateFinReelle(), fb.getDateFinReelle(), local::setDateFinReelle);
+        changed |= copy(local.getPourcentageAvancement(), fb.getPourcentageAvancement(), local::setPourcentageAvancement);
+        changed |= copy(local.getPriorite(), fb.getPriorite(), local::setPriorite);
+        changed |= copy(local.getType(), fb.getType(), local::setType);
+        changed |= copy(local.getPhotoUrl(), fb.getPhotoUrl(), local::setPhotoUrl);
+        changed |= copy(local.getIsActive(), fb.getIsActive(), local::setIsActive);
+        return changed;
+    }
+
+    private static <T> boolean copy(T current, T value, Consumer<T> setter) {
+        if (value == null || Objects.equals(current, value)) {
+            return false;
+        }
+        setter.accept(value);
+        return true;
+    }
+
+    /**
+     * Le budget Firestore est un double : comparaison numérique, sans tenir compte de l'échelle.
+     */
+    private static boolean copyBudget(Signalement local, BigDecimal value) {
+        if (value == null || (local.getBudget() != null && local.getBudget().compareTo(value) == 0)) {
+            return false;
+        }
+        local.setBudget(value);
+        return true;
+    }
+}
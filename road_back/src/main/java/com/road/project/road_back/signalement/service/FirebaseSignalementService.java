@@ -1,19 +1,25 @@
 package com.road.project.road_back.signalement.service;
 
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 import com.google.firebase.auth.FirebaseAuth;
+import com.road.project.road_back.config.ConnectivityMonitor;
 import com.road.project.road_back.config.FirebaseConfig;
 import com.road.project.road_back.signalement.entity.Signalement;
 import com.road.project.road_back.signalement.entity.StatutSignalement;
+import com.road.project.road_back.signalement.util.Geohash;
 import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -27,6 +33,9 @@ import java.util.concurrent.TimeoutException;
  * Service pour gérer les signalements dans Firebase Firestore.
  *
  * Collection Firestore: signalements
+ *
+ * Un listener temps réel sur les signalements actifs alimente {@link FirestoreSignalementReplica} ;
+ * tant qu'il est à jour, les lectures paginées et par zone sont servies depuis cette réplique.
  */
 @Service
 @Slf4j
@@ -34,21 +43,105 @@ import java.util.concurrent.TimeoutException;
 public class FirebaseSignalementService {
 
     private final FirebaseConfig firebaseConfig;
+    private final ConnectivityMonitor connectivityMonitor;
+    private final FirestoreSignalementReplica replica;
+
+    private ListenerRegistration replicaRegistration;
+
+    // Vrai quand la dernière vérification n'a trouvé aucun document sans geohash à jour (requêtes par zone indexées)
+    private volatile boolean geohashBackfilled;
 
     private static final String SIGNALEMENTS_COLLECTION = "signalements";
     private static final int TIMEOUT_SECONDS = 15;
+    private static final String GEOHASH_FIELD = "geohash";
+    private static final int MAX_GEOHASH_CELLS = 9;
+
+    @Value("${app.firebase.bulk.initial-ops-per-second:500}")
+    private int bulkInitialOpsPerSecond;
+
+    @Value("${app.firebase.bulk.max-ops-per-second:10000}")
+    private int bulkMaxOpsPerSecond;
+
+    @Value("${app.firebase.bulk.timeout-seconds:120}")
+    private int bulkTimeoutSeconds;
 
     /**
      * Vérifie si une connexion Internet est disponible et Firebase initialisé.
+     * L'état de la connexion provient du cache de {@link ConnectivityMonitor}.
      */
     public boolean isOnline() {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress("8.8.8.8", 53), 3000);
-            return firebaseConfig.isFirebaseInitialized();
-        } catch (Exception e) {
-            log.debug("Pas de connexion Internet détectée: {}", e.getMessage());
-            return false;
+        return connectivityMonitor.isOnline() && firebaseConfig.isFirebaseInitialized();
+    }
+
+    // ==================== RÉPLIQUE TEMPS RÉEL ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReplica() {
+        connectivityMonitor.addListener(online -> {
+            if (online) {
+                ensureReplicaListener();
+            }
+        });
+        ensureReplicaListener();
+    }
+
+    @PreDestroy
+    public synchronized void stopReplica() {
+        if (replicaRegistration != null) {
+            replicaRegistration.remove();
+            replicaRegistration = null;
+        }
+    }
+
+    /**
+     * Indique si les lectures peuvent être servies par la réplique locale.
+     * Relance le listener s'il a été interrompu.
+     */
+    private boolean replicaAvailable() {
+        if (replica.isReady()) {
+            return true;
+        }
+        ensureReplicaListener();
+        return false;
+    }
+
+    private synchronized void ensureReplicaListener() {
+        if (replicaRegistration != null || !isOnline()) {
+            return;
         }
+
+        Firestore firestore = getFirestore();
+        if (firestore == null) return;
+
+        log.info("Démarrage du listener temps réel sur les signalements Firebase");
+        replicaRegistration = firestore.collection(SIGNALEMENTS_COLLECTION)
+                .whereEqualTo("isActive", true)
+                .addSnapshotListener((snapshot, error) -> {
+                    if (error != null) {
+                        log.warn("Listener des signalements interrompu: {}", error.getMessage());
+                        onReplicaListenerFailed();
+                        return;
+                    }
+                    if (snapshot == null) return;
+
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        QueryDocumentSnapshot doc = change.getDocument();
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            replica.remove(doc.getId());
+                        } else {
+                            replica.upsert(doc.getId(), doc.getTimestamp("createdAt"), mapDocumentToSignalementData(doc));
+                        }
+                    }
+                    if (!replica.isReady()) {
+                        replica.markReady();
+                        log.info("Réplique des signalements Firebase prête");
+                    }
+                });
+    }
+
+    private synchronized void onReplicaListenerFailed() {
+        replicaRegistration = null;
+        replica.invalidate();
     }
 
     /**
@@ -137,6 +230,12 @@ public class FirebaseSignalementService {
     public Optional<FirebaseSignalementData> getSignalementBySyncId(String syncId) {
         if (!isOnline() || syncId == null) return Optional.empty();
 
+        // La réplique ne contient que les signalements actifs : sinon, lecture réseau
+        if (replicaAvailable()) {
+            Optional<FirebaseSignalementData> replicated = replica.get(syncId);
+            if (replicated.isPresent()) return replicated;
+        }
+
         Firestore firestore = getFirestore();
         if (firestore == null) return Optional.empty();
 
@@ -151,10 +250,13 @@ public class FirebaseSignalementService {
             }
             return Optional.empty();
 
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            log.error("Erreur lors de la récupération du signalement: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            log.error("Récupération du signalement interrompue: {}", syncId);
             Thread.currentThread().interrupt();
             return Optional.empty();
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Erreur lors de la récupération du signalement: {}", e.getMessage());
+            return Optional.empty();
         }
     }
 
@@ -188,37 +290,160 @@ public class FirebaseSignalementService {
         }
     }
 
+    /**
+     * Récupère une page de signalements actifs (optionnellement filtrés par statut)
+     * triés par date de création décroissante.
+     *
+     * La pagination se fait côté Firestore : {@code cursor} (jeton opaque renvoyé par la
+     * page précédente) est traduit en {@code startAfter}, sinon {@code offset} est utilisé.
+     * Le total provient d'une requête d'agrégation {@code count()}.
+     * Quand la réplique locale est à jour, la page y est lue avec les mêmes curseurs.
+     *
+     * Les documents sans {@code createdAt} de type timestamp ne sont pas listés (le tri sur
+     * ce champ les exclut) : le filtre explicite les écarte aussi du total, comme la réplique.
+     */
+    public Optional<FirebaseSignalementPage> getSignalementsPage(
+            StatutSignalement statut, int offset, int size, String cursor) {
+        if (!isOnline()) return Optional.empty();
+
+        if (replicaAvailable()) {
+            return Optional.of(getSignalementsPageFromReplica(statut, offset, size, cursor));
+        }
+
+        Firestore firestore = getFirestore();
+        if (firestore == null) return Optional.empty();
+
+        try {
+            Query base = firestore.collection(SIGNALEMENTS_COLLECTION).whereEqualTo("isActive", true);
+            if (statut != null) {
+                base = base.whereEqualTo("statut", statut.name());
+            }
+            // Seuls les documents datés sont paginés : le curseur repose sur createdAt
+            base = base.whereGreaterThanOrEqualTo("createdAt", Timestamp.MIN_VALUE);
+
+            Query pageQuery = base
+                    .orderBy("createdAt", Query.Direction.DESCENDING)
+                    .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+
+            if (cursor != null && !cursor.isBlank()) {
+                PageCursor decoded = PageCursor.decode(cursor);
+                pageQuery = pageQuery.startAfter(decoded.createdAt(), decoded.documentId());
+            } else if (offset > 0) {
+                pageQuery = pageQuery.offset(offset);
+            }
+
+            // Un document de plus pour savoir s'il existe une page suivante
+            ApiFuture<QuerySnapshot> pageFuture = pageQuery.limit(size + 1).get();
+            ApiFuture<AggregateQuerySnapshot> countFuture = base.count().get();
+
+            List<QueryDocumentSnapshot> docs = pageFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getDocuments();
+            long total = countFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getCount();
+
+            boolean hasNext = docs.size() > size;
+            List<QueryDocumentSnapshot> pageDocs = hasNext ? docs.subList(0, size) : docs;
+
+            List<FirebaseSignalementData> content = new ArrayList<>();
+            for (DocumentSnapshot doc : pageDocs) {
+                content.add(mapDocumentToSignalementData(doc));
+            }
+
+            String nextCursor = null;
+            if (hasNext) {
+                DocumentSnapshot last = pageDocs.get(pageDocs.size() - 1);
+                nextCursor = new PageCursor(last.getTimestamp("createdAt"), last.getId()).encode();
+            }
+
+            FirebaseSignalementPage page = new FirebaseSignalementPage();
+            page.setContent(content);
+            page.setTotal(total);
+            page.setNextCursor(nextCursor);
+            return Optional.of(page);
+
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            log.error("Erreur lors de la récupération paginée des signalements: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private FirebaseSignalementPage getSignalementsPageFromReplica(
+            StatutSignalement statut, int offset, int size, String cursor) {
+        PageCursor decoded = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor) : null;
+        FirestoreSignalementReplica.ReplicaPage replicaPage = decoded != null
+                ? replica.page(statut, 0, size, decoded.createdAt(), decoded.documentId())
+                : replica.page(statut, offset, size, null, null);
+
+        List<FirebaseSignalementData> content = new ArrayList<>();
+        for (FirestoreSignalementReplica.Entry entry : replicaPage.entries()) {
+            content.add(entry.data());
+        }
+
+        String nextCursor = null;
+        if (replicaPage.hasNext()) {
+            FirestoreSignalementReplica.Entry last = replicaPage.entries().get(replicaPage.entries().size() - 1);
+            nextCursor = new PageCursor(last.createdAt(), last.id()).encode();
+        }
+
+        FirebaseSignalementPage page = new FirebaseSignalementPage();
+        page.setContent(content);
+        page.setTotal(replicaPage.total());
+        page.setNextCursor(nextCursor);
+        return page;
+    }
+
     /**
      * Récupère les signalements dans une zone géographique.
+     * La zone est couverte par quelques préfixes geohash, lus dans la réplique locale
+     * si elle est à jour, sinon interrogés en parallèle par des requêtes d'intervalle
+     * sur le champ "geohash" ; les résultats sont ensuite filtrés précisément.
+     * Tant que la dernière vérification ({@link #backfillGeohashes()}) a trouvé des documents
+     * sans geohash à jour, la requête réseau lit tous les signalements actifs.
      */
     public List<FirebaseSignalementData> getSignalementsByBounds(
             Double minLat, Double maxLat, Double minLng, Double maxLng) {
         if (!isOnline()) return Collections.emptyList();
 
+        Set<String> prefixes = Geohash.coveringPrefixes(minLat, maxLat, minLng, maxLng, MAX_GEOHASH_CELLS);
+        if (replicaAvailable()) {
+            return replica.inBounds(prefixes, minLat, maxLat, minLng, maxLng);
+        }
+
         Firestore firestore = getFirestore();
         if (firestore == null) return Collections.emptyList();
 
         try {
-            // Firestore ne supporte pas les requêtes sur plusieurs champs avec inégalités
-            // On filtre côté client
-            ApiFuture<QuerySnapshot> future = firestore.collection(SIGNALEMENTS_COLLECTION)
-                    .whereEqualTo("isActive", true)
-                    .get();
+            if (!geohashBackfilled) {
+                return getSignalementsByBoundsFullScan(firestore, minLat, maxLat, minLng, maxLng);
+            }
 
-            QuerySnapshot querySnapshot = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            List<ApiFuture<QuerySnapshot>> futures = new ArrayList<>();
+            for (String prefix : prefixes) {
+                futures.add(firestore.collection(SIGNALEMENTS_COLLECTION)
+                        .whereEqualTo("isActive", true)
+                        .orderBy(GEOHASH_FIELD)
+                        .startAt(prefix)
+                        .endAt(prefix + "\uf8ff")
+                        .get());
+            }
 
-            List<FirebaseSignalementData> result = new ArrayList<>();
-            for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                Double lat = doc.getDouble("latitude");
-                Double lng = doc.getDouble("longitude");
+            List<QuerySnapshot> snapshots = ApiFutures.allAsList(futures).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            Map<String, FirebaseSignalementData> result = new LinkedHashMap<>();
+            for (QuerySnapshot snapshot : snapshots) {
+                for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                    Double lat = doc.getDouble("latitude");
+                    Double lng = doc.getDouble("longitude");
 
-                if (lat != null && lng != null &&
-                    lat >= minLat && lat <= maxLat &&
-                    lng >= minLng && lng <= maxLng) {
-                    result.add(mapDocumentToSignalementData(doc));
+                    if (lat != null && lng != null &&
+                        lat >= minLat && lat <= maxLat &&
+                        lng >= minLng && lng <= maxLng) {
+                        result.putIfAbsent(doc.getId(), mapDocumentToSignalementData(doc));
+                    }
                 }
             }
-            return result;
+
+            log.debug("Bounds: {} préfixes geohash interrogés, {} signalements", prefixes.size(), result.size());
+            return new ArrayList<>(result.values());
 
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
             log.error("Erreur lors de la récupération par bounds: {}", e.getMessage());
@@ -227,6 +452,94 @@ public class FirebaseSignalementService {
         }
     }
 
+    /**
+     * Lecture de tous les signalements actifs filtrés côté client, pour les documents sans geohash.
+     */
+    private List<FirebaseSignalementData> getSignalementsByBoundsFullScan(
+            Firestore firestore, Double minLat, Double maxLat, Double minLng, Double maxLng)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        QuerySnapshot querySnapshot = firestore.collection(SIGNALEMENTS_COLLECTION)
+                .whereEqualTo("isActive", true)
+                .get()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        List<FirebaseSignalementData> result = new ArrayList<>();
+        for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+            Double lat = doc.getDouble("latitude");
+            Double lng = doc.getDouble("longitude");
+
+            if (lat != null && lng != null &&
+                lat >= minLat && lat <= maxLat &&
+                lng >= minLng && lng <= maxLng) {
+                result.add(mapDocumentToSignalementData(doc));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ajoute le champ geohash aux documents qui ne l'ont pas (ou le corrige après un déplacement).
+     * Vérification périodique : d'anciennes versions de l'application mobile écrivent encore des
+     * documents sans geohash. Les requêtes par zone indexées ne sont utilisées que lorsqu'une
+     * vérification n'a trouvé aucun document à corriger ; sinon elles lisent toute la collection.
+     */
+    @Scheduled(initialDelayString = "${app.firebase.geohash-backfill.initial-delay-ms:10000}",
+               fixedDelayString = "${app.firebase.geohash-backfill.interval-ms:300000}")
+    public void backfillGeohashes() {
+        if (!isOnline()) return;
+
+        Firestore firestore = getFirestore();
+        if (firestore == null) return;
+
+        BulkWriter writer = null;
+        ApiFuture<Void> flushed = null;
+        try {
+            List<QueryDocumentSnapshot> docs = firestore.collection(SIGNALEMENTS_COLLECTION)
+                    .select("latitude", "longitude", GEOHASH_FIELD)
+                    .get()
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .getDocuments();
+
+            writer = firestore.bulkWriter(BulkWriterOptions.builder()
+                    .setInitialOpsPerSecond(bulkInitialOpsPerSecond)
+                    .setMaxOpsPerSecond(bulkMaxOpsPerSecond)
+                    .build());
+            List<ApiFuture<WriteResult>> writes = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : docs) {
+                Double lat = doc.getDouble("latitude");
+                Double lng = doc.getDouble("longitude");
+                if (lat == null || lng == null) continue;
+
+                String geohash = Geohash.encode(lat, lng, Geohash.STORAGE_PRECISION);
+                if (!geohash.equals(doc.getString(GEOHASH_FIELD))) {
+                    writes.add(writer.update(doc.getReference(), GEOHASH_FIELD, geohash));
+                }
+            }
+
+            flushed = writer.flush();
+            flushed.get(bulkTimeoutSeconds, TimeUnit.SECONDS);
+
+            // Des documents à corriger : d'autres peuvent être écrits sans geohash d'ici la prochaine vérification
+            geohashBackfilled = writes.isEmpty();
+            long failed = writes.stream().filter(write -> !isSuccessful(write)).count();
+            if (writes.isEmpty()) {
+                log.debug("Champ geohash vérifié sur {} signalements Firebase", docs.size());
+            } else if (failed == 0) {
+                log.info("Champ geohash complété sur {} / {} signalements Firebase", writes.size(), docs.size());
+            } else {
+                log.warn("Ajout du geohash: {} / {} écritures en échec, nouvel essai plus tard", failed, writes.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            log.warn("Ajout du geohash aux signalements Firebase impossible: {}", e.getMessage());
+        } finally {
+            if (writer != null) {
+                closeWhenFlushed(writer, flushed != null ? flushed : writer.flush());
+            }
+        }
+    }
+
     // ==================== UPDATE ====================
 
     /**
@@ -368,15 +681,142 @@ public class FirebaseSignalementService {
     public void syncToFirebase(Signalement signalement) {
         if (!isOnline()) return;
 
-        String syncId = signalement.getSyncId();
-        if (syncId == null) {
-            syncId = UUID.randomUUID().toString();
+        if (signalement.getSyncId() == null) {
+            createSignalement(signalement);
+        } else {
+            bulkUpsertSignalements(List.of(signalement));
         }
+    }
 
-        if (getSignalementBySyncId(syncId).isPresent()) {
-            updateSignalement(syncId, signalement);
-        } else {
-            createSignalement(signalement);
+    /**
+     * Résultat de l'écriture d'un signalement ; {@code error} donne la cause d'un échec.
+     */
+    public record UpsertResult(boolean written, String error) {
+
+        static final UpsertResult WRITTEN = new UpsertResult(true, null);
+
+        public static UpsertResult failed(String error) {
+            return new UpsertResult(false, error);
+        }
+    }
+
+    /**
+     * Envoie l'état courant de plusieurs signalements vers Firebase avec un BulkWriter.
+     *
+     * Chaque document est écrit en set(merge) : aucune lecture préalable n'est nécessaire
+     * et l'écriture crée le document s'il n'existe pas. Le débit est réglé par
+     * app.firebase.bulk.*, le BulkWriter parallélise les lots et rejoue les erreurs transitoires.
+     *
+     * @return le résultat par syncId, avec la cause de l'échec le cas échéant ;
+     *         les signalements sans syncId sont ignorés
+     */
+    public Map<String, UpsertResult> bulkUpsertSignalements(Collection<Signalement> signalements) {
+        Map<String, UpsertResult> results = new LinkedHashMap<>();
+        for (Signalement s : signalements) {
+            if (s.getSyncId() != null) {
+                results.put(s.getSyncId(), UpsertResult.failed("Firebase hors ligne"));
+            }
+        }
+        if (results.isEmpty() || !isOnline()) {
+            return results;
+        }
+
+        Firestore firestore = getFirestore();
+        if (firestore == null) return results;
+
+        BulkWriter writer = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(bulkInitialOpsPerSecond)
+                .setMaxOpsPerSecond(bulkMaxOpsPerSecond)
+                .build());
+
+        Map<String, ApiFuture<WriteResult>> writes = new LinkedHashMap<>();
+        ApiFuture<Void> flushed = null;
+        // Cause commune aux écritures non terminées (interruption, délai dépassé)
+        String pendingError = "Écriture non envoyée";
+        try {
+            Timestamp now = Timestamp.now();
+            for (Signalement s : signalements) {
+                if (s.getSyncId() == null) continue;
+
+                Map<String, Object> data = mapSignalementToFirestore(s);
+                if (s.getCreatedAt() != null) data.put("createdAt", toTimestamp(s.getCreatedAt()));
+                data.put("updatedAt", now);
+
+                DocumentReference doc = firestore.collection(SIGNALEMENTS_COLLECTION).document(s.getSyncId());
+                writes.put(s.getSyncId(), writer.set(doc, data, SetOptions.merge()));
+            }
+
+            flushed = writer.flush();
+            flushed.get(bulkTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendingError = "Envoi groupé vers Firebase interrompu";
+            log.error(pendingError);
+        } catch (TimeoutException e) {
+            pendingError = "Écriture non acquittée en " + bulkTimeoutSeconds + " s";
+            log.error("Erreur lors de l'envoi groupé vers Firebase: délai de {} s dépassé", bulkTimeoutSeconds);
+        } catch (ExecutionException e) {
+            pendingError = errorMessage(e);
+            log.error("Erreur lors de l'envoi groupé vers Firebase: {}", pendingError);
+        } finally {
+            closeWhenFlushed(writer, flushed != null ? flushed : writer.flush());
+        }
+
+        int succeeded = 0;
+        for (Map.Entry<String, ApiFuture<WriteResult>> write : writes.entrySet()) {
+            UpsertResult result = upsertResult(write.getValue(), pendingError);
+            results.put(write.getKey(), result);
+            if (result.written()) succeeded++;
+        }
+        log.info("Envoi groupé vers Firebase: {} / {} signalements écrits", succeeded, writes.size());
+        return results;
+    }
+
+    /**
+     * Ferme le BulkWriter. close() attend la fin des écritures en cours : après un timeout
+     * ou une interruption, la fermeture a lieu à la fin du flush, sans bloquer l'appelant.
+     */
+    private void closeWhenFlushed(BulkWriter writer, ApiFuture<Void> flushed) {
+        flushed.addListener(() -> {
+            try {
+                writer.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.warn("Fermeture du BulkWriter en erreur: {}", e.getMessage());
+            }
+        }, Runnable::run);
+    }
+
+    private UpsertResult upsertResult(ApiFuture<WriteResult> write, String pendingError) {
+        if (!write.isDone()) {
+            return UpsertResult.failed(pendingError);
+        }
+        try {
+            write.get();
+            return UpsertResult.WRITTEN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UpsertResult.failed(pendingError);
+        } catch (ExecutionException e) {
+            return UpsertResult.failed(errorMessage(e));
+        }
+    }
+
+    private static String errorMessage(ExecutionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private boolean isSuccessful(ApiFuture<WriteResult> write) {
+        if (!write.isDone()) {
+            return false;
+        }
+        try {
+            write.get();
+            return true;
+        } catch (InterruptedException | ExecutionException e) {
+            return false;
         }
     }
 
@@ -389,6 +829,9 @@ public class FirebaseSignalementService {
         data.put("description", s.getDescription());
         data.put("latitude", s.getLatitude());
         data.put("longitude", s.getLongitude());
+        if (s.getLatitude() != null && s.getLongitude() != null) {
+            data.put(GEOHASH_FIELD, Geohash.encode(s.getLatitude(), s.getLongitude(), Geohash.STORAGE_PRECISION));
+        }
         data.put("adresse", s.getAdresse());
         data.put("statut", s.getStatut() != null ? s.getStatut().name() : StatutSignalement.NOUVEAU.name());
         data.put("surfaceImpactee", s.getSurfaceImpactee());
@@ -491,6 +934,40 @@ public class FirebaseSignalementService {
         return LocalDateTime.ofInstant(Instant.ofEpochSecond(ts.getSeconds(), ts.getNanos()), ZoneId.systemDefault());
     }
 
+    /**
+     * Curseur de pagination : position (createdAt, id du document) du dernier élément
+     * d'une page, encodée en Base64 URL pour être opaque côté client.
+     */
+    private record PageCursor(Timestamp createdAt, String documentId) {
+
+        String encode() {
+            String raw = createdAt.getSeconds() + ":" + createdAt.getNanos() + ":" + documentId;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), java.nio.charset.StandardCharsets.UTF_8);
+                String[] parts = raw.split(":", 3);
+                Timestamp ts = Timestamp.ofTimeSecondsAndNanos(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+                return new PageCursor(ts, parts[2]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
+            }
+        }
+    }
+
+    /**
+     * Page de signalements Firebase avec jeton de continuation.
+     */
+    @lombok.Data
+    public static class FirebaseSignalementPage {
+        private List<FirebaseSignalementData> content;
+        private long total;
+        private String nextCursor;
+    }
+
     /**
      * DTO pour les données signalement Firebase.
      */
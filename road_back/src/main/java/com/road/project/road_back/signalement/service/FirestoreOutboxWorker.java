@@ -0,0 +1,145 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.entity.FirestoreOutboxEntry;
+import com.road.project.road_back.signalement.entity.OutboxOperation;
+import com.road.project.road_back.signalement.entity.Signalement;
+import com.road.project.road_back.signalement.repository.FirestoreOutboxRepository;
+import com.road.project.road_back.signalement.repository.SignalementRepository;
+import com.road.project.road_back.signalement.service.FirebaseSignalementService.UpsertResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Envoi différé des modifications de signalements vers Firestore (outbox).
+ *
+ * Les services enregistrent l'écriture à effectuer dans la table firestore_outbox,
+ * dans la même transaction que la modification locale ; la requête HTTP ne dépend
+ * donc que de la base. Ce worker envoie ensuite les entrées en attente quand Firebase
+ * est disponible, avec un délai de nouvelle tentative croissant en cas d'échec.
+ * Le signalement repasse à isSynced = true lorsque sa dernière entrée est acquittée.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FirestoreOutboxWorker {
+
+    private final FirestoreOutboxRepository outboxRepository;
+    private final SignalementRepository signalementRepository;
+    private final FirebaseSignalementService firebaseSignalementService;
+    private final TransactionTemplate transactionTemplate;
+    private final SignalementListCache signalementListCache;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.retry-initial-delay-ms:5000}")
+    private long retryInitialDelayMs;
+
+    @Value("${app.outbox.retry-max-delay-ms:600000}")
+    private long retryMaxDelayMs;
+
+    /**
+     * Enregistre une écriture Firestore à effectuer.
+     * Doit être appelé dans la transaction qui modifie le signalement.
+     */
+    public void enqueue(Signalement signalement, OutboxOperation operation) {
+        if (signalement.getSyncId() == null) {
+            return;
+        }
+        signalement.setIsSynced(false);
+
+        outboxRepository.save(FirestoreOutboxEntry.builder()
+                .signalementId(signalement.getId())
+                .syncId(signalement.getSyncId())
+                .operation(operation)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Envoie les entrées dont l'échéance est atteinte en un seul envoi groupé.
+     * L'état courant de chaque signalement est envoyé (la suppression logique
+     * comprise), donc plusieurs entrées pour un même signalement restent cohérentes.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:2000}")
+    public void drain() {
+        if (!firebaseSignalementService.isOnline()) {
+            return;
+        }
+
+        List<FirestoreOutboxEntry> due = outboxRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Set<Long> ids = due.stream().map(FirestoreOutboxEntry::getSignalementId).collect(Collectors.toSet());
+        Map<Long, Signalement> signalements = signalementRepository.findWithUsersByIdIn(ids).stream()
+                .collect(Collectors.toMap(Signalement::getId, Function.identity()));
+
+        Map<String, UpsertResult> results;
+        String batchError = null;
+        try {
+            results = firebaseSignalementService.bulkUpsertSignalements(signalements.values());
+        } catch (RuntimeException e) {
+            log.error("Erreur lors de l'envoi de l'outbox vers Firebase: {}", e.getMessage());
+            results = Map.of();
+            batchError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+
+        List<FirestoreOutboxEntry> acknowledged = new ArrayList<>();
+        List<FirestoreOutboxEntry> failed = new ArrayList<>();
+        for (FirestoreOutboxEntry entry : due) {
+            // Un signalement supprimé définitivement en local n'a plus rien à envoyer
+            if (!signalements.containsKey(entry.getSignalementId())) {
+                acknowledged.add(entry);
+                continue;
+            }
+            UpsertResult result = results.get(entry.getSyncId());
+            if (result != null && result.written()) {
+                acknowledged.add(entry);
+            } else {
+                scheduleRetry(entry, result != null ? result.error() : batchError);
+                failed.add(entry);
+            }
+        }
+
+        if (!acknowledged.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxRepository.deleteAllInBatch(acknowledged);
+                acknowledged.stream()
+                        .map(FirestoreOutboxEntry::getSignalementId)
+                        .distinct()
+                        .forEach(signalementRepository::markSyncedIfNoPendingOutbox);
+                // isSynced figure dans les pages de la liste, hors des notifications de signalements
+                signalementListCache.invalidateAll();
+            });
+        }
+
+        if (!failed.isEmpty()) {
+            outboxRepository.saveAll(failed);
+            log.warn("Outbox Firestore: {} écritures acquittées, {} en échec", acknowledged.size(), failed.size());
+        }
+    }
+
+    private void scheduleRetry(FirestoreOutboxEntry entry, String error) {
+        int attempts = entry.getAttempts() + 1;
+        long delay = Math.min(retryMaxDelayMs, retryInitialDelayMs << Math.min(attempts - 1, 20));
+        entry.setAttempts(attempts);
+        entry.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+        entry.setLastError("Échec de l'écriture Firestore (" + entry.getOperation() + ")"
+                + (error != null ? ": " + error : ""));
+    }
+}
@@ -0,0 +1,203 @@
+package com.road.project.road_back.signalement.service;
+
+import com.google.cloud.Timestamp;
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import com.road.project.road_back.signalement.util.Geohash;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Réplique en mémoire des signalements actifs de Firestore.
+ *
+ * Alimentée par le listener temps réel de {@link FirebaseSignalementService}, elle
+ * permet de servir les lectures sans requête réseau. Index maintenus : par id de
+ * document, par (createdAt desc, id desc) globalement et par statut pour la
+ * pagination, et par geohash pour les requêtes par zone.
+ */
+@Component
+public class FirestoreSignalementReplica {
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing(Entry::createdAt, Comparator.reverseOrder())
+            .thenComparing(Entry::id, Comparator.reverseOrder());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> byId = new HashMap<>();
+    private final TreeSet<Entry> byCreatedAt = new TreeSet<>(NEWEST_FIRST);
+    private final Map<StatutSignalement, TreeSet<Entry>> byStatut = new EnumMap<>(StatutSignalement.class);
+    private final TreeMap<String, Entry> byGeohash = new TreeMap<>();
+
+    private volatile boolean ready;
+
+    /**
+     * Document répliqué : {@code createdAt} est conservé au format Firestore
+     * pour produire des curseurs identiques à ceux des requêtes réseau.
+     */
+    public record Entry(String id, Timestamp createdAt, String geohash,
+                        FirebaseSignalementService.FirebaseSignalementData data) {
+    }
+
+    /**
+     * Page lue dans la réplique.
+     */
+    public record ReplicaPage(List<Entry> entries, long total, boolean hasNext) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Signale que la réplique reflète l'état courant de Firestore.
+     */
+    public void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Vide la réplique (listener interrompu) : les lectures repassent par le réseau.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            byId.clear();
+            byCreatedAt.clear();
+            byStatut.clear();
+            byGeohash.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(String id, Timestamp createdAt, FirebaseSignalementService.FirebaseSignalementData data) {
+        String geohash = data.getLatitude() != null && data.getLongitude() != null
+                ? Geohash.encode(data.getLatitude(), data.getLongitude(), Geohash.STORAGE_PRECISION)
+                : null;
+        Entry entry = new Entry(id, createdAt, geohash, data);
+
+        lock.writeLock().lock();
+        try {
+            unindex(byId.put(id, entry));
+            // Comme pour orderBy("createdAt") côté Firestore, un document sans date n'est pas paginé
+            if (createdAt != null) {
+                byCreatedAt.add(entry);
+                if (data.getStatut() != null) {
+                    byStatut.computeIfAbsent(data.getStatut(), s -> new TreeSet<>(NEWEST_FIRST)).add(entry);
+                }
+            }
+            if (geohash != null) {
+                byGeohash.put(geohashKey(entry), entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            unindex(byId.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<FirebaseSignalementService.FirebaseSignalementData> get(String id) {
+        lock.readLock().lock();
+        try {
+            Entry entry = byId.get(id);
+            return entry != null ? Optional.of(entry.data()) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Page triée par date de création décroissante, après la position
+     * (afterCreatedAt, afterId) si elle est fournie, sinon après {@code offset} éléments.
+     */
+    public ReplicaPage page(StatutSignalement statut, int offset, int size, Timestamp afterCreatedAt, String afterId) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> source = statut == null
+                    ? byCreatedAt
+                    : byStatut.getOrDefault(statut, new TreeSet<>(NEWEST_FIRST));
+
+            Iterator<Entry> iterator;
+            if (afterCreatedAt != null) {
+                iterator = source.tailSet(new Entry(afterId, afterCreatedAt, null, null), false).iterator();
+            } else {
+                iterator = source.iterator();
+                for (int i = 0; i < offset && iterator.hasNext(); i++) {
+                    iterator.next();
+                }
+            }
+
+            List<Entry> entries = new ArrayList<>(size);
+            while (iterator.hasNext() && entries.size() < size) {
+                entries.add(iterator.next());
+            }
+            return new ReplicaPage(entries, source.size(), iterator.hasNext());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Signalements dans la zone, à partir des préfixes geohash qui la couvrent.
+     */
+    public List<FirebaseSignalementService.FirebaseSignalementData> inBounds(
+            Collection<String> prefixes, Double minLat, Double maxLat, Double minLng, Double maxLng) {
+        lock.readLock().lock();
+        try {
+            Map<String, FirebaseSignalementService.FirebaseSignalementData> result = new LinkedHashMap<>();
+            for (String prefix : prefixes) {
+                for (Entry entry : byGeohash.subMap(prefix, true, prefix + "\uf8ff", true).values()) {
+                    Double lat = entry.data().getLatitude();
+                    Double lng = entry.data().getLongitude();
+                    if (lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng) {
+                        result.putIfAbsent(entry.id(), entry.data());
+                    }
+                }
+            }
+            return new ArrayList<>(result.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unindex(Entry previous) {
+        if (previous == null) {
+            return;
+        }
+        if (previous.createdAt() != null) {
+            byCreatedAt.remove(previous);
+            TreeSet<Entry> statutSet = byStatut.get(previous.data().getStatut());
+            if (statutSet != null) {
+                statutSet.remove(previous);
+            }
+        }
+        if (previous.geohash() != null) {
+            byGeohash.remove(geohashKey(previous));
+        }
+    }
+
+    private static String geohashKey(Entry entry) {
+        return entry.geohash() + ":" + entry.id();
+    }
+}
@@ -0,0 +1,15 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+
+/**
+ * Reçoit les modifications de signalements une fois la transaction validée.
+ *
+ * {@code before} est null pour une création, {@code after} est null pour une
+ * suppression définitive. Une suppression logique arrive comme une mise à jour
+ * dont {@code after.isActive()} vaut false.
+ */
+public interface SignalementChangeListener {
+
+    void onSignalementChange(SignalementSnapshot before, SignalementSnapshot after);
+}
@@ -0,0 +1,47 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Diffuse les modifications de signalements aux {@link SignalementChangeListener}
+ * une fois la transaction courante validée (immédiatement hors transaction).
+ *
+ * Appelé par le listener JPA et par les opérations en masse qui contournent
+ * les callbacks d'entité (requêtes UPDATE JPQL).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementChangePublisher {
+
+    private final ObjectProvider<SignalementChangeListener> changeListeners;
+
+    public void publish(SignalementSnapshot before, SignalementSnapshot after) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(before, after);
+                }
+            });
+        } else {
+            dispatch(before, after);
+        }
+    }
+
+    private void dispatch(SignalementSnapshot before, SignalementSnapshot after) {
+        changeListeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onSignalementChange(before, after);
+            } catch (Exception e) {
+                log.warn("Erreur dans un listener de signalement: {}", e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.road.project.road_back.signalement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.TreeSet;
+
+/**
+ * Numéro de séquence monotone attribué à chaque modification de signalement
+ * (colonne change_seq), utilisé comme watermark de synchronisation à la place de updatedAt.
+ *
+ * Les numéros attribués dans une transaction non encore terminée sont suivis :
+ * {@link #safeWatermark()} ne dépasse jamais le plus petit d'entre eux, afin qu'un client
+ * ne saute pas une modification validée après sa lecture.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementChangeSequence {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TreeSet<Long> pending = new TreeSet<>();
+    private long current;
+    private boolean initialized;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        ensureInitialized();
+    }
+
+    /**
+     * Attribue le prochain numéro de séquence.
+     */
+    public synchronized long next() {
+        ensureInitialized();
+        long seq = ++current;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.add(seq);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(seq);
+                }
+            });
+        }
+        return seq;
+    }
+
+    /**
+     * Plus grand numéro de séquence en dessous duquel toutes les modifications sont validées.
+     */
+    public synchronized long safeWatermark() {
+        ensureInitialized();
+        return pending.isEmpty() ? current : Math.min(current, pending.first() - 1);
+    }
+
+    private synchronized void release(long seq) {
+        pending.remove(seq);
+    }
+
+    private synchronized void ensureInitialized() {
+        if (initialized) {
+            return;
+        }
+        // Les signalements antérieurs à la colonne reçoivent leur id comme numéro de séquence
+        int backfilled = jdbcTemplate.update("UPDATE signalements SET change_seq = id WHERE change_seq IS NULL");
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(change_seq), 0) FROM signalements", Long.class);
+        current = max != null ? max : 0L;
+        initialized = true;
+        log.info("Séquence de modifications initialisée à {} ({} signalements renumérotés)", current, backfilled);
+    }
+}
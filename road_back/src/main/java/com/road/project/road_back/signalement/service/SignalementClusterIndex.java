@@ -0,0 +1,221 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.dto.SignalementClusterResponse;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import com.road.project.road_back.signalement.repository.SignalementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Regroupement des signalements actifs pour l'affichage de la carte.
+ *
+ * Pour chaque niveau de zoom, les signalements sont agrégés dans une grille en coordonnées
+ * Web Mercator (cellules de app.clusters.cell-size-px pixels) : nombre, somme des coordonnées
+ * pour le centroïde et répartition par statut. Cette hiérarchie est construite au démarrage
+ * puis mise à jour à chaque modification ; une requête ne lit que les cellules visibles.
+ * Les modifications reçues pendant une reconstruction y sont réappliquées.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementClusterIndex implements SignalementChangeListener {
+
+    public static final int MAX_ZOOM = 18;
+    private static final int TILE_SIZE_PX = 256;
+    private static final double MAX_MERCATOR_LAT = 85.05112878;
+
+    private final SignalementRepository signalementRepository;
+
+    @Value("${app.clusters.cell-size-px:64}")
+    private int cellSizePx;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    private SignalementRebuildLog rebuildLog;
+    private final List<Map<Long, Cell>> levels = new ArrayList<>();
+
+    /**
+     * Agrégat d'une cellule. Tant que la cellule ne contient qu'un signalement,
+     * la somme des ids est l'id de ce signalement.
+     */
+    private static class Cell {
+        private long count;
+        private double sumLat;
+        private double sumLng;
+        private long sumIds;
+        private final Map<StatutSignalement, Long> parStatut = new EnumMap<>(StatutSignalement.class);
+
+        void apply(SignalementSnapshot s, int sign) {
+            count += sign;
+            sumLat += sign * s.latitude();
+            sumLng += sign * s.longitude();
+            sumIds += sign * s.id();
+            if (s.statut() != null) {
+                parStatut.merge(s.statut(), (long) sign, Long::sum);
+                parStatut.remove(s.statut(), 0L);
+            }
+        }
+
+        SignalementClusterResponse toResponse() {
+            return SignalementClusterResponse.builder()
+                    .latitude(sumLat / count)
+                    .longitude(sumLng / count)
+                    .count(count)
+                    .parStatut(new EnumMap<>(parStatut))
+                    .signalementId(count == 1 ? sumIds : null)
+                    .build();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        rebuild();
+    }
+
+    /**
+     * Reconstruit la hiérarchie à partir de la base locale.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            SignalementRebuildLog changes = new SignalementRebuildLog();
+            setRebuildLog(changes);
+            try {
+                List<SignalementSnapshot> actifs = signalementRepository.findActiveSnapshots();
+
+                int count;
+                lock.writeLock().lock();
+                try {
+                    levels.clear();
+                    for (int z = 0; z <= MAX_ZOOM; z++) {
+                        levels.add(new HashMap<>());
+                    }
+                    Collection<SignalementSnapshot> merged = changes.merge(actifs);
+                    for (SignalementSnapshot s : merged) {
+                        apply(s, 1);
+                    }
+                    count = merged.size();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                log.info("Regroupements de la carte construits ({} signalements, zooms 0 à {})", count, MAX_ZOOM);
+            } finally {
+                setRebuildLog(null);
+            }
+        }
+    }
+
+    private void setRebuildLog(SignalementRebuildLog changes) {
+        lock.writeLock().lock();
+        try {
+            rebuildLog = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSignalementChange(SignalementSnapshot before, SignalementSnapshot after) {
+        lock.writeLock().lock();
+        try {
+            if (rebuildLog != null) {
+                rebuildLog.record(before, after);
+            }
+            apply(before, -1);
+            apply(after, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cellules non vides du niveau de zoom qui intersectent la zone.
+     */
+    public List<SignalementClusterResponse> query(double minLat, double maxLat, double minLng, double maxLng, int zoom) {
+        int z = Math.max(0, Math.min(MAX_ZOOM, zoom));
+        long x0 = cellX(minLng, z);
+        long x1 = cellX(maxLng, z);
+        long y0 = cellY(maxLat, z);
+        long y1 = cellY(minLat, z);
+
+        List<SignalementClusterResponse> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, Cell> level = levels.get(z);
+            long visibleCells = (x1 - x0 + 1) * (y1 - y0 + 1);
+
+            if (visibleCells <= level.size()) {
+                for (long x = x0; x <= x1; x++) {
+                    for (long y = y0; y <= y1; y++) {
+                        Cell cell = level.get(key(x, y));
+                        if (cell != null) {
+                            result.add(cell.toResponse());
+                        }
+                    }
+                }
+            } else {
+                // Zone plus grande que le nombre de cellules occupées : parcourir ces dernières
+                for (Map.Entry<Long, Cell> entry : level.entrySet()) {
+                    long x = entry.getKey() >>> 32;
+                    long y = entry.getKey() & 0xffffffffL;
+                    if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                        result.add(entry.getValue().toResponse());
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private void apply(SignalementSnapshot s, int sign) {
+        if (s == null || !s.active() || s.id() == null || s.latitude() == null || s.longitude() == null) {
+            return;
+        }
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            Map<Long, Cell> level = levels.get(z);
+            long key = key(cellX(s.longitude(), z), cellY(s.latitude(), z));
+            Cell cell = level.computeIfAbsent(key, k -> new Cell());
+            cell.apply(s, sign);
+            if (cell.count <= 0) {
+                level.remove(key);
+            }
+        }
+    }
+
+    private long cellsPerAxis(int z) {
+        return ((long) TILE_SIZE_PX << z) / cellSizePx;
+    }
+
+    private long cellX(double lng, int z) {
+        double x = (Math.max(-180, Math.min(180, lng)) + 180) / 360;
+        return clampCell((long) Math.floor(x * cellsPerAxis(z)), z);
+    }
+
+    private long cellY(double lat, int z) {
+        double latRad = Math.toRadians(Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, lat)));
+        double y = (1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2;
+        return clampCell((long) Math.floor(y * cellsPerAxis(z)), z);
+    }
+
+    private long clampCell(long value, int z) {
+        return Math.max(0, Math.min(cellsPerAxis(z) - 1, value));
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) | y;
+    }
+}
@@ -0,0 +1,63 @@
+package com.road.project.road_back.signalement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Colonne PostGIS {@code location geography(Point, 4326)} des signalements.
+ *
+ * Sur PostgreSQL avec l'extension PostGIS, la colonne est créée au démarrage comme
+ * colonne générée à partir de latitude/longitude (toujours à jour, sans mapping JPA)
+ * avec un index GiST. Sur une autre base (H2) ou sans PostGIS, {@link #isAvailable()}
+ * reste false et les recherches géographiques utilisent l'index spatial en mémoire.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementGeoSchema {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.postgis.enabled:true}")
+    private boolean enabled;
+
+    private volatile boolean available;
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("Base {} : recherches géographiques servies par l'index en mémoire", product);
+            return;
+        }
+
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS postgis");
+            jdbcTemplate.execute("ALTER TABLE signalements ADD COLUMN IF NOT EXISTS location geography(Point, 4326) " +
+                    "GENERATED ALWAYS AS (ST_SetSRID(ST_MakePoint(longitude, latitude), 4326)::geography) STORED");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_signalements_location " +
+                    "ON signalements USING GIST (location)");
+            available = true;
+            log.info("Colonne PostGIS signalements.location et index GiST disponibles");
+        } catch (DataAccessException e) {
+            log.warn("PostGIS indisponible, recherches géographiques servies par l'index en mémoire: {}",
+                    e.getMostSpecificCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.dto.SignalementResponse;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache des pages de la liste des signalements lues en base locale.
+ *
+ * Une page est indexée par (statut, page, taille, tri) et mémorisée avec le numéro
+ * de version de sa liste : la liste complète et chaque statut ont leur propre compteur,
+ * incrémenté à chaque modification validée d'un signalement concerné. Une page dont
+ * la version ne correspond plus est simplement recalculée.
+ */
+@Component
+public class SignalementListCache implements SignalementChangeListener {
+
+    @Value("${app.signalement.list-cache.max-entries:200}")
+    private int maxEntries;
+
+    private long allVersion;
+    private final Map<StatutSignalement, Long> statutVersions = new EnumMap<>(StatutSignalement.class);
+
+    private final Map<Key, Entry> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private record Key(StatutSignalement statut, int page, int size, String sort) {
+    }
+
+    private record Entry(long version, Page<SignalementResponse> page) {
+    }
+
+    /**
+     * Retourne la page en cache si elle est à jour, sinon la calcule avec {@code loader}.
+     */
+    public Page<SignalementResponse> get(StatutSignalement statut, Pageable pageable,
+                                         Supplier<Page<SignalementResponse>> loader) {
+        Key key = new Key(statut, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+
+        // La version est lue avant la requête : une modification concurrente rendra la page obsolète
+        long version;
+        synchronized (pages) {
+            version = version(statut);
+            Entry entry = pages.get(key);
+            if (entry != null && entry.version() == version) {
+                return entry.page();
+            }
+        }
+
+        Page<SignalementResponse> page = loader.get();
+        synchronized (pages) {
+            pages.put(key, new Entry(version, page));
+        }
+        return page;
+    }
+
+    @Override
+    public void onSignalementChange(SignalementSnapshot before, SignalementSnapshot after) {
+        synchronized (pages) {
+            allVersion++;
+            bump(before);
+            bump(after);
+        }
+    }
+
+    /**
+     * Rend toutes les pages obsolètes, immédiatement puis de nouveau à la fin de la
+     * transaction en cours. À appeler pour les modifications qui ne passent pas par
+     * les notifications de signalements (état de synchronisation, profil d'un auteur).
+     */
+    public void invalidateAll() {
+        bumpAll();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bumpAll();
+                }
+            });
+        }
+    }
+
+    private void bumpAll() {
+        synchronized (pages) {
+            allVersion++;
+            for (StatutSignalement statut : StatutSignalement.values()) {
+                statutVersions.merge(statut, 1L, Long::sum);
+            }
+        }
+    }
+
+    private void bump(SignalementSnapshot snapshot) {
+        if (snapshot != null && snapshot.statut() != null) {
+            statutVersions.merge(snapshot.statut(), 1L, Long::sum);
+        }
+    }
+
+    private long version(StatutSignalement statut) {
+        return statut == null ? allVersion : statutVersions.getOrDefault(statut, 0L);
+    }
+}
@@ -0,0 +1,50 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modifications reçues pendant la reconstruction d'un état à partir de la base.
+ *
+ * La lecture de la base n'est pas synchronisée avec les notifications : une modification
+ * validée pendant la lecture peut y figurer ou non. Les modifications enregistrées depuis
+ * le début de la reconstruction sont donc réappliquées par id (dernier état connu), ce qui
+ * donne le même résultat dans les deux cas. Non thread-safe : utilisé sous le verrou de l'index.
+ */
+class SignalementRebuildLog {
+
+    private final List<SignalementSnapshot[]> changes = new ArrayList<>();
+
+    void record(SignalementSnapshot before, SignalementSnapshot after) {
+        changes.add(new SignalementSnapshot[]{before, after});
+    }
+
+    /**
+     * Signalements actifs lus en base, corrigés par les modifications enregistrées.
+     */
+    Collection<SignalementSnapshot> merge(List<SignalementSnapshot> actifs) {
+        Map<Long, SignalementSnapshot> byId = new LinkedHashMap<>();
+        for (SignalementSnapshot s : actifs) {
+            byId.put(s.id(), s);
+        }
+        for (SignalementSnapshot[] change : changes) {
+            SignalementSnapshot before = change[0];
+            SignalementSnapshot after = change[1];
+            Long id = after != null ? after.id() : before != null ? before.id() : null;
+            if (id == null) {
+                continue;
+            }
+            if (after != null && after.active()) {
+                byId.put(id, after);
+            } else {
+                byId.remove(id);
+            }
+        }
+        return byId.values();
+    }
+}
@@ -4,10 +4,13 @@ import com.road.project.road_back.auth.entity.User;
 import com.road.project.road_back.auth.repository.UserRepository;
 import com.road.project.road_back.signalement.dto.*;
 import com.road.project.road_back.signalement.entity.Configuration;
+import com.road.project.road_back.signalement.entity.OutboxOperation;
 import com.road.project.road_back.signalement.entity.Signalement;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
 import com.road.project.road_back.signalement.entity.StatutSignalement;
 import com.road.project.road_back.signalement.repository.ConfigurationRepository;
 import com.road.project.road_back.signalement.repository.SignalementRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,11 +19,15 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service de gestion des signalements.
@@ -36,92 +43,86 @@ public class SignalementService {
     private final ConfigurationRepository configurationRepository;
     private final FirebaseSignalementService firebaseSignalementService;
     private final FirebaseConfigurationService firebaseConfigurationService;
+    private final SignalementStatsAggregator signalementStatsAggregator;
+    private final SignalementChangePublisher signalementChangePublisher;
+    private final FirestoreOutboxWorker firestoreOutboxWorker;
+    private final FirebaseSignalementRefresher firebaseSignalementRefresher;
+    private final SignalementSpatialIndex signalementSpatialIndex;
+    private final SignalementClusterIndex signalementClusterIndex;
+    private final SignalementListCache signalementListCache;
+    private final SignalementGeoSchema signalementGeoSchema;
+    private final SignalementChangeSequence signalementChangeSequence;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    private static final int SYNC_STREAM_CHUNK_SIZE = 100;
+    private static final int MAX_NEARBY_RESULTS = 200;
 
     /**
      * Récupère tous les signalements paginés.
-     * Priorité: Firebase si online, sinon local.
+     * Priorité: Firebase si online (pagination par curseur côté Firestore), sinon local.
      */
-    public Page<SignalementResponse> getAllSignalements(Pageable pageable) {
+    public CursorPage<SignalementResponse> getAllSignalements(Pageable pageable, String cursor) {
         // Essayer Firebase d'abord
-        if (firebaseSignalementService.isOnline()) {
-            log.info("Récupération des signalements depuis Firebase");
-            List<FirebaseSignalementService.FirebaseSignalementData> firebaseData =
-                    firebaseSignalementService.getAllSignalements();
-
-            if (!firebaseData.isEmpty()) {
-                List<SignalementResponse> responses = firebaseData.stream()
-                        .map(this::mapFirebaseToResponse)
-                        .collect(Collectors.toList());
-
-                // Pagination manuelle
-                int start = (int) pageable.getOffset();
-                int end = Math.min(start + pageable.getPageSize(), responses.size());
-
-                if (start > responses.size()) {
-                    return new PageImpl<>(Collections.emptyList(), pageable, responses.size());
-                }
-
-                return new PageImpl<>(responses.subList(start, end), pageable, responses.size());
-            }
+        Optional<CursorPage<SignalementResponse>> firebasePage = getFirebasePage(null, pageable, cursor);
+        if (firebasePage.isPresent()) {
+            return firebasePage.get();
         }
 
-        // Fallback local
+        // Fallback local (pages en cache jusqu'à la prochaine modification)
         log.info("Récupération des signalements depuis la base locale");
-        return signalementRepository.findByIsActiveTrue(pageable)
-                .map(this::mapToResponse);
+        return new CursorPage<>(signalementListCache.get(null, pageable,
+                () -> signalementRepository.findByIsActiveTrue(pageable).map(this::mapToResponse)), null);
     }
 
     /**
      * Récupère les signalements par statut.
      */
-    public Page<SignalementResponse> getSignalementsByStatut(StatutSignalement statut, Pageable pageable) {
+    public CursorPage<SignalementResponse> getSignalementsByStatut(StatutSignalement statut, Pageable pageable, String cursor) {
         // Essayer Firebase d'abord
-        if (firebaseSignalementService.isOnline()) {
-            List<FirebaseSignalementService.FirebaseSignalementData> firebaseData =
-                    firebaseSignalementService.getSignalementsByStatut(statut);
-
-            if (!firebaseData.isEmpty()) {
-                List<SignalementResponse> responses = firebaseData.stream()
-                        .map(this::mapFirebaseToResponse)
-                        .collect(Collectors.toList());
-
-                int start = (int) pageable.getOffset();
-                int end = Math.min(start + pageable.getPageSize(), responses.size());
+        Optional<CursorPage<SignalementResponse>> firebasePage = getFirebasePage(statut, pageable, cursor);
+        if (firebasePage.isPresent()) {
+            return firebasePage.get();
+        }
 
-                if (start > responses.size()) {
-                    return new PageImpl<>(Collections.emptyList(), pageable, responses.size());
-                }
+        // Fallback local (pages en cache jusqu'à la prochaine modification de ce statut)
+        return new CursorPage<>(signalementListCache.get(statut, pageable,
+                () -> signalementRepository.findByStatutAndIsActiveTrue(statut, pageable).map(this::mapToResponse)), null);
+    }
 
-                return new PageImpl<>(responses.subList(start, end), pageable, responses.size());
-            }
+    /**
+     * Lit une page depuis Firebase. Vide si hors ligne, en erreur ou si Firebase ne contient
+     * aucun signalement (la base locale prend alors le relais).
+     */
+    private Optional<CursorPage<SignalementResponse>> getFirebasePage(
+            StatutSignalement statut, Pageable pageable, String cursor) {
+        if (!firebaseSignalementService.isOnline()) {
+            return Optional.empty();
         }
 
-        // Fallback local
-        return signalementRepository.findByStatutAndIsActiveTrue(statut, pageable)
-                .map(this::mapToResponse);
+        log.info("Récupération des signalements depuis Firebase");
+        return firebaseSignalementService
+                .getSignalementsPage(statut, (int) pageable.getOffset(), pageable.getPageSize(), cursor)
+                .filter(fbPage -> fbPage.getTotal() > 0)
+                .map(fbPage -> {
+                    List<SignalementResponse> content = fbPage.getContent().stream()
+                            .map(this::mapFirebaseToResponse)
+                            .collect(Collectors.toList());
+                    return new CursorPage<>(new PageImpl<>(content, pageable, fbPage.getTotal()),
+                            fbPage.getNextCursor());
+                });
     }
 
     /**
-     * Récupère un signalement par ID.
-     * Cherche d'abord localement, puis vérifie dans Firebase si nécessaire.
+     * Récupère un signalement par ID depuis la base locale.
+     * La mise à jour depuis Firebase se fait en arrière-plan, au plus une fois par durée de fraîcheur.
      */
     public SignalementResponse getSignalementById(Long id) {
         Signalement signalement = signalementRepository.findById(id)
                 .filter(Signalement::getIsActive)
                 .orElseThrow(() -> new RuntimeException("Signalement non trouvé"));
 
-        // Si online et syncId existe, récupérer les données à jour depuis Firebase
-        if (firebaseSignalementService.isOnline() && signalement.getSyncId() != null) {
-            Optional<FirebaseSignalementService.FirebaseSignalementData> firebaseData =
-                    firebaseSignalementService.getSignalementBySyncId(signalement.getSyncId());
-
-            if (firebaseData.isPresent()) {
-                // Synchroniser les données Firebase vers local
-                syncFirebaseToLocal(signalement, firebaseData.get());
-                signalementRepository.save(signalement);
-            }
-        }
-
+        firebaseSignalementRefresher.requestRefresh(signalement);
         return mapToResponse(signalement);
     }
 
@@ -143,16 +144,78 @@ public class SignalementService {
             }
         }
 
-        // Fallback local
-        return signalementRepository.findByBounds(minLat, maxLat, minLng, maxLng)
-                .stream()
+        // Fallback local : index GiST PostGIS si disponible, sinon index spatial en mémoire
+        List<Long> ids = signalementGeoSchema.isAvailable()
+                ? signalementRepository.findIdsWithinBox(minLat, maxLat, minLng, maxLng)
+                : signalementSpatialIndex.query(minLat, maxLat, minLng, maxLng).stream()
+                        .map(SignalementLocationResponse::getId)
+                        .collect(Collectors.toList());
+        return mapActiveInOrder(ids);
+    }
+
+    /**
+     * Signalements actifs les plus proches d'une position, du plus proche au plus éloigné.
+     * Limités au rayon (en mètres) s'il est fourni.
+     */
+    public List<SignalementResponse> getSignalementsNearby(double lat, double lng, Double radiusMeters, int limit) {
+        if (radiusMeters != null && radiusMeters <= 0) {
+            throw new RuntimeException("Le rayon doit être positif");
+        }
+        int max = Math.max(1, Math.min(limit, MAX_NEARBY_RESULTS));
+
+        List<Long> ids;
+        if (signalementGeoSchema.isAvailable()) {
+            ids = radiusMeters != null
+                    ? signalementRepository.findIdsWithinRadius(lat, lng, radiusMeters, max)
+                    : signalementRepository.findIdsNearest(lat, lng, max);
+        } else {
+            ids = signalementSpatialIndex.nearest(lat, lng, radiusMeters, max);
+        }
+        return mapActiveInOrder(ids);
+    }
+
+    /**
+     * Charge les signalements (avec leur auteur, en une requête) et les retourne
+     * dans l'ordre des ids, sans ceux qui ne sont plus actifs.
+     */
+    private List<SignalementResponse> mapActiveInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Signalement> byId = signalementRepository.findWithCreatorByIdIn(ids).stream()
+                .collect(Collectors.toMap(Signalement::getId, s -> s));
+        return ids.stream()
+                .map(byId::get)
+                .filter(s -> s != null && Boolean.TRUE.equals(s.getIsActive()))
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Positions et statuts des signalements actifs dans une zone, lus dans l'index spatial en mémoire.
+     */
+    public List<SignalementLocationResponse> getSignalementLocationsByBounds(
+            Double minLat, Double maxLat, Double minLng, Double maxLng) {
+        return signalementSpatialIndex.query(minLat, maxLat, minLng, maxLng);
+    }
+
+    /**
+     * Regroupements des signalements visibles dans la zone pour un niveau de zoom de la carte.
+     */
+    public List<SignalementClusterResponse> getSignalementClusters(
+            Double minLat, Double maxLat, Double minLng, Double maxLng, int zoom) {
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new RuntimeException("Zone invalide : les bornes minimales doivent être inférieures aux bornes maximales");
+        }
+        if (zoom < 0) {
+            throw new RuntimeException("Le niveau de zoom doit être positif");
+        }
+        return signalementClusterIndex.query(minLat, maxLat, minLng, maxLng, zoom);
+    }
+
     /**
      * Crée un nouveau signalement.
-     * Crée dans Firebase si online, puis localement.
+     * Enregistré localement ; l'envoi vers Firebase passe par l'outbox.
      */
     @Transactional
     public SignalementResponse createSignalement(SignalementRequest request) {
@@ -199,26 +262,16 @@ public class SignalementService {
                 .createdBy(currentUser)
                 .build();
 
-        // Sauvegarder localement
+        // Sauvegarder localement puis programmer l'envoi vers Firebase
         signalement = signalementRepository.save(signalement);
-
-        // Créer dans Firebase si online
-        if (firebaseSignalementService.isOnline()) {
-            log.info("Création du signalement dans Firebase: {}", syncId);
-            firebaseSignalementService.createSignalement(signalement);
-            signalement.setIsSynced(true);
-            signalementRepository.save(signalement);
-        } else {
-            signalement.setIsSynced(false);
-            signalementRepository.save(signalement);
-        }
+        firestoreOutboxWorker.enqueue(signalement, OutboxOperation.CREATE);
 
         return mapToResponse(signalement);
     }
 
     /**
      * Met à jour un signalement.
-     * Met à jour dans Firebase si online, puis localement.
+     * Mis à jour localement ; l'envoi vers Firebase passe par l'outbox.
      */
     @Transactional
     public SignalementResponse updateSignalement(Long id, SignalementRequest request) {
@@ -268,19 +321,9 @@ public class SignalementService {
         if (request.getLocalUpdatedAt() != null) signalement.setLocalUpdatedAt(request.getLocalUpdatedAt());
 
         signalement.setUpdatedBy(currentUser);
+        firestoreOutboxWorker.enqueue(signalement, OutboxOperation.UPDATE);
         signalement = signalementRepository.save(signalement);
 
-        // Mettre à jour dans Firebase si online
-        if (firebaseSignalementService.isOnline() && signalement.getSyncId() != null) {
-            log.info("Mise à jour du signalement dans Firebase: {}", signalement.getSyncId());
-            boolean updated = firebaseSignalementService.updateSignalement(signalement.getSyncId(), signalement);
-            signalement.setIsSynced(updated);
-            signalementRepository.save(signalement);
-        } else {
-            signalement.setIsSynced(false);
-            signalementRepository.save(signalement);
-        }
-
         return mapToResponse(signalement);
     }
 
@@ -340,7 +383,7 @@ public class SignalementService {
 
     /**
      * Supprime un signalement (soft delete).
-     * Supprime dans Firebase si online, puis localement.
+     * Supprimé localement ; l'envoi vers Firebase passe par l'outbox.
      */
     @Transactional
     public void deleteSignalement(Long id) {
@@ -348,127 +391,31 @@ public class SignalementService {
                 .orElseThrow(() -> new RuntimeException("Signalement non trouvé"));
 
         signalement.setIsActive(false);
+        firestoreOutboxWorker.enqueue(signalement, OutboxOperation.DELETE);
         signalementRepository.save(signalement);
-
-        // Supprimer dans Firebase si online
-        if (firebaseSignalementService.isOnline() && signalement.getSyncId() != null) {
-            log.info("Suppression du signalement dans Firebase: {}", signalement.getSyncId());
-            firebaseSignalementService.deleteSignalement(signalement.getSyncId());
-        }
     }
 
     /**
-     * Récupère les statistiques des signalements.
+     * Récupère les statistiques des signalements (instantané maintenu incrémentalement).
      */
     public SignalementStatsResponse getStats() {
-        Long total = signalementRepository.countActive();
-        Long nouveaux = signalementRepository.countByStatut(StatutSignalement.NOUVEAU);
-        Long enCours = signalementRepository.countByStatut(StatutSignalement.EN_COURS);
-        Long termines = signalementRepository.countByStatut(StatutSignalement.TERMINE);
-        Double surfaceTotale = signalementRepository.sumSurfaceImpactee();
-        BigDecimal budgetTotal = signalementRepository.sumBudget();
-        Double tauxAvancement = signalementRepository.avgPourcentageAvancement();
-
-        // Comptage par statut
-        Map<String, Long> parStatut = new HashMap<>();
-        parStatut.put("NOUVEAU", nouveaux);
-        parStatut.put("EN_COURS", enCours);
-        parStatut.put("TERMINE", termines);
-
-        // Comptage par entreprise
-        List<SignalementStatsResponse.EntrepriseStats> parEntreprise =
-            signalementRepository.countByEntreprise().stream()
-                .map(row -> SignalementStatsResponse.EntrepriseStats.builder()
-                        .nom((String) row[0])
-                        .count((Long) row[1])
-                        .build())
-                .collect(Collectors.toList());
-
-        // Calcul des statistiques de traitement
-        SignalementStatsResponse.TraitementStats traitement = calculerTraitementStats();
-
-        return SignalementStatsResponse.builder()
-                .totalSignalements(total)
-                .nouveaux(nouveaux)
-                .enCours(enCours)
-                .termines(termines)
-                .surfaceTotale(surfaceTotale)
-                .budgetTotal(budgetTotal)
-                .tauxAvancementMoyen(tauxAvancement)
-                .parStatut(parStatut)
-                .parEntreprise(parEntreprise)
-                .traitement(traitement)
-                .build();
+        return signalementStatsAggregator.getStats();
     }
 
     /**
-     * Calcule les statistiques de temps de traitement moyen.
+     * Reconstruit les statistiques depuis la base locale.
      */
-    private SignalementStatsResponse.TraitementStats calculerTraitementStats() {
-        // Temps moyen de NOUVEAU à EN_COURS
-        List<Signalement> nouveauToEnCours = signalementRepository.findWithNouveauToEnCoursDates();
-        Double tempsNouveauAEnCours = calculerTempsMoyenEnHeures(
-            nouveauToEnCours,
-            Signalement::getDateNouveau,
-            Signalement::getDateEnCours
-        );
-
-        // Temps moyen de EN_COURS à TERMINE
-        List<Signalement> enCoursToTermine = signalementRepository.findWithEnCoursToTermineDates();
-        Double tempsEnCoursATermine = calculerTempsMoyenEnHeures(
-            enCoursToTermine,
-            Signalement::getDateEnCours,
-            Signalement::getDateTermine
-        );
-
-        // Temps moyen total de NOUVEAU à TERMINE
-        List<Signalement> nouveauToTermine = signalementRepository.findWithNouveauToTermineDates();
-        Double tempsTotal = calculerTempsMoyenEnHeures(
-            nouveauToTermine,
-            Signalement::getDateNouveau,
-            Signalement::getDateTermine
-        );
-
-        return SignalementStatsResponse.TraitementStats.builder()
-                .tempsNouveauAEnCours(tempsNouveauAEnCours)
-                .tempsEnCoursATermine(tempsEnCoursATermine)
-                .tempsTotal(tempsTotal)
-                .nombreTravauxTermines((long) nouveauToTermine.size())
-                .nombreTravauxEnCours((long) enCoursToTermine.size())
-                .nombreNouveauxTraitements((long) nouveauToEnCours.size())
-                .build();
-    }
-
-    /**
-     * Calcule le temps moyen en heures entre deux dates.
-     */
-    private Double calculerTempsMoyenEnHeures(
-            List<Signalement> signalements,
-            java.util.function.Function<Signalement, LocalDateTime> getDateDebut,
-            java.util.function.Function<Signalement, LocalDateTime> getDateFin) {
-
-        if (signalements.isEmpty()) {
-            return 0.0;
-        }
-
-        double totalHeures = signalements.stream()
-            .filter(s -> getDateDebut.apply(s) != null && getDateFin.apply(s) != null)
-            .mapToDouble(s -> {
-                LocalDateTime debut = getDateDebut.apply(s);
-                LocalDateTime fin = getDateFin.apply(s);
-                return java.time.Duration.between(debut, fin).toHours();
-            })
-            .sum();
-
-        long count = signalements.stream()
-            .filter(s -> getDateDebut.apply(s) != null && getDateFin.apply(s) != null)
-            .count();
-
-        return count > 0 ? totalHeures / count : 0.0;
+    public SignalementStatsResponse rebuildStats() {
+        signalementStatsAggregator.rebuild();
+        return signalementStatsAggregator.getStats();
     }
 
     /**
      * Synchronise les signalements depuis le client.
+     *
+     * Traitement ensembliste : une seule requête IN pour retrouver les syncId connus,
+     * résolution last-write-wins en mémoire, mises à jour envoyées en batch JDBC au flush
+     * et suppressions logiques en une seule requête UPDATE.
      */
     @Transactional
     public SyncResponse syncSignalements(SyncRequest request) {
@@ -480,53 +427,80 @@ public class SignalementService {
 
         User currentUser = getCurrentUser();
 
+        List<SignalementRequest> sigRequests = request.getSignalements() != null
+                ? request.getSignalements() : Collections.emptyList();
+        List<String> deletedSyncIds = request.getDeletedSyncIds() != null
+                ? request.getDeletedSyncIds() : Collections.emptyList();
+
+        // Chargement en une requête de tous les signalements actifs concernés
+        Set<String> syncIds = new HashSet<>(deletedSyncIds);
+        sigRequests.stream()
+                .map(SignalementRequest::getSyncId)
+                .filter(Objects::nonNull)
+                .forEach(syncIds::add);
+
+        Map<String, Signalement> existants = new HashMap<>();
+        if (!syncIds.isEmpty()) {
+            signalementRepository.findBySyncIdInAndIsActiveTrue(syncIds)
+                    .forEach(sig -> existants.put(sig.getSyncId(), sig));
+        }
+
         // Traiter les signalements envoyés par le client
-        if (request.getSignalements() != null) {
-            for (SignalementRequest sigRequest : request.getSignalements()) {
-                if (sigRequest.getSyncId() != null) {
-                    Optional<Signalement> existingOpt =
-                        signalementRepository.findBySyncIdAndIsActiveTrue(sigRequest.getSyncId());
-
-                    if (existingOpt.isPresent()) {
-                        Signalement existing = existingOpt.get();
-
-                        // Résolution de conflit: last-write-wins
-                        if (sigRequest.getLocalUpdatedAt() != null &&
-                            existing.getUpdatedAt() != null &&
-                            sigRequest.getLocalUpdatedAt().isAfter(existing.getUpdatedAt())) {
-
-                            updateFromRequest(existing, sigRequest, currentUser);
-                            signalementRepository.save(existing);
-                            updated.add(mapToResponse(existing));
-                            conflictsResolved++;
-                        } else {
-                            updated.add(mapToResponse(existing));
-                        }
-                    } else {
-                        // Nouveau signalement
-                        Signalement signalement = createFromRequest(sigRequest, currentUser);
-                        signalementRepository.save(signalement);
-                        created.add(mapToResponse(signalement));
-                    }
+        for (SignalementRequest sigRequest : sigRequests) {
+            if (sigRequest.getSyncId() == null) {
+                continue;
+            }
+
+            Signalement existing = existants.get(sigRequest.getSyncId());
+            if (existing != null) {
+                // Résolution de conflit: last-write-wins (écrit en batch au flush)
+                if (sigRequest.getLocalUpdatedAt() != null &&
+                    existing.getUpdatedAt() != null &&
+                    sigRequest.getLocalUpdatedAt().isAfter(existing.getUpdatedAt())) {
+
+                    updateFromRequest(existing, sigRequest, currentUser);
+                    updated.add(mapToResponse(existing));
+                    conflictsResolved++;
+                } else {
+                    updated.add(mapToResponse(existing));
                 }
+            } else {
+                // Nouveau signalement
+                Signalement signalement = signalementRepository.save(createFromRequest(sigRequest, currentUser));
+                existants.put(signalement.getSyncId(), signalement);
+                created.add(mapToResponse(signalement));
             }
         }
 
-        // Traiter les suppressions
-        if (request.getDeletedSyncIds() != null) {
-            for (String syncId : request.getDeletedSyncIds()) {
-                signalementRepository.findBySyncIdAndIsActiveTrue(syncId)
-                        .ifPresent(sig -> {
-                            sig.setIsActive(false);
-                            signalementRepository.save(sig);
-                            deleted.add(syncId);
-                        });
+        // Traiter les suppressions en une seule requête
+        List<Signalement> aSupprimer = new ArrayList<>();
+        for (String syncId : new LinkedHashSet<>(deletedSyncIds)) {
+            Signalement sig = existants.get(syncId);
+            if (sig != null) {
+                aSupprimer.add(sig);
+                deleted.add(syncId);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            signalementRepository.softDeleteBySyncIds(deleted, syncTime, signalementChangeSequence.next());
+            // La requête UPDATE contourne les callbacks JPA : notifier les vues dérivées
+            for (Signalement sig : aSupprimer) {
+                SignalementSnapshot before = sig.getLoadedState() != null
+                        ? sig.getLoadedState() : SignalementSnapshot.of(sig);
+                signalementChangePublisher.publish(before, before.deactivated());
             }
         }
 
         // Récupérer les modifications côté serveur depuis la dernière sync
+        // (par numéro de séquence si le client le fournit, sinon par date)
+        long changeWatermark = signalementChangeSequence.safeWatermark();
         List<SignalementResponse> serverChanges = new ArrayList<>();
-        if (request.getLastSyncTime() != null) {
+        if (request.getLastChangeSeq() != null) {
+            serverChanges = signalementRepository.findChangedBetween(request.getLastChangeSeq(), changeWatermark)
+                    .stream()
+                    .map(this::mapToResponse)
+                    .collect(Collectors.toList());
+        } else if (request.getLastSyncTime() != null) {
             serverChanges = signalementRepository.findModifiedSince(request.getLastSyncTime())
                     .stream()
                     .map(this::mapToResponse)
@@ -540,9 +514,61 @@ public class SignalementService {
                 .deleted(deleted)
                 .serverChanges(serverChanges)
                 .conflictsResolved(conflictsResolved)
+                .changeWatermark(changeWatermark)
                 .build();
     }
 
+    /**
+     * Écrit les modifications côté serveur en NDJSON, directement depuis un curseur JPA.
+     *
+     * Sans position, envoie tous les signalements actifs ; avec (afterSeq, afterId), envoie
+     * les modifications postérieures, suppressions comprises. La dernière ligne donne
+     * le watermark à utiliser pour la synchronisation suivante.
+     */
+    @Transactional
+    public void streamChanges(Long afterSeq, Long afterId, OutputStream out) throws IOException {
+        long watermark = signalementChangeSequence.safeWatermark();
+        boolean delta = afterSeq != null;
+        long fromId = afterId != null ? afterId : Long.MAX_VALUE;
+
+        try (Stream<Signalement> rows = delta
+                ? signalementRepository.streamChangedUpTo(afterSeq, fromId, watermark)
+                : signalementRepository.streamActiveUpTo(Long.MIN_VALUE, Long.MAX_VALUE, watermark)) {
+
+            Iterator<Signalement> iterator = rows.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                Signalement signalement = iterator.next();
+                boolean actif = Boolean.TRUE.equals(signalement.getIsActive());
+
+                writeSyncLine(out, SyncChangeEvent.builder()
+                        .type(actif ? SyncChangeEvent.UPSERT : SyncChangeEvent.DELETE)
+                        .seq(signalement.getChangeSeq())
+                        .id(signalement.getId())
+                        .syncId(signalement.getSyncId())
+                        .signalement(actif ? mapToResponse(signalement) : null)
+                        .build());
+
+                // Libérer le contexte de persistance au fil du flux
+                entityManager.detach(signalement);
+                if (++count % SYNC_STREAM_CHUNK_SIZE == 0) {
+                    out.flush();
+                }
+            }
+        }
+
+        writeSyncLine(out, SyncChangeEvent.builder()
+                .type(SyncChangeEvent.WATERMARK)
+                .seq(watermark)
+                .build());
+        out.flush();
+    }
+
+    private void writeSyncLine(OutputStream out, SyncChangeEvent event) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(event));
+        out.write('\n');
+    }
+
     private void updateFromRequest(Signalement signalement, SignalementRequest request, User user) {
         if (request.getTitre() != null) signalement.setTitre(request.getTitre());
         if (request.getDescription() != null) signalement.setDescription(request.getDescription());
@@ -830,30 +856,5 @@ public class SignalementService {
                 .updatedAt(fb.getUpdatedAt())
                 .build();
     }
-
-    /**
-     * Synchronise les données Firebase vers un signalement local.
-     */
-    private void syncFirebaseToLocal(Signalement local, FirebaseSignalementService.FirebaseSignalementData fb) {
-        if (fb.getTitre() != null) local.setTitre(fb.getTitre());
-        if (fb.getDescription() != null) local.setDescription(fb.getDescription());
-        if (fb.getLatitude() != null) local.setLatitude(fb.getLatitude());
-        if (fb.getLongitude() != null) local.setLongitude(fb.getLongitude());
-        if (fb.getAdresse() != null) local.setAdresse(fb.getAdresse());
-        if (fb.getStatut() != null) local.setStatut(fb.getStatut());
-        if (fb.getSurfaceImpactee() != null) local.setSurfaceImpactee(fb.getSurfaceImpactee());
-        if (fb.getNiveau() != null) local.setNiveau(fb.getNiveau());
-        if (fb.getBudget() != null) local.setBudget(fb.getBudget());
-        if (fb.getEntrepriseResponsable() != null) local.setEntrepriseResponsable(fb.getEntrepriseResponsable());
-        if (fb.getDateDebut() != null) local.setDateDebut(fb.getDateDebut());
-        if (fb.getDateFinPrevue() != null) local.setDateFinPrevue(fb.getDateFinPrevue());
-        if (fb.getDateFinReelle() != null) local.setDateFinReelle(fb.getDateFinReelle());
-        if (fb.getPourcentageAvancement() != null) local.setPourcentageAvancement(fb.getPourcentageAvancement());
-        if (fb.getPriorite() != null) local.setPriorite(fb.getPriorite());
-        if (fb.getType() != null) local.setType(fb.getType());
-        if (fb.getPhotoUrl() != null) local.setPhotoUrl(fb.getPhotoUrl());
-        if (fb.getIsActive() != null) local.setIsActive(fb.getIsActive());
-        local.setIsSynced(true);
-    }
 }
 
@@ -0,0 +1,276 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.map.dto.MapConfigResponse;
+import com.road.project.road_back.map.service.MapService;
+import com.road.project.road_back.signalement.dto.SignalementLocationResponse;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import com.road.project.road_back.signalement.repository.SignalementRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Index spatial en mémoire des signalements actifs (grille uniforme).
+ *
+ * La grille couvre la zone d'Antananarivo définie par {@link MapService#getMapConfig()} ;
+ * les points situés en dehors sont conservés dans une liste parcourue à chaque requête.
+ * L'index est construit au démarrage puis tenu à jour par les notifications
+ * de {@link SignalementChangePublisher}, avant les caches qui le lisent (tuiles vectorielles).
+ * Les notifications reçues pendant une reconstruction y sont réappliquées.
+ */
+@Component
+@Order(0)
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementSpatialIndex implements SignalementChangeListener {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final SignalementRepository signalementRepository;
+    private final MapService mapService;
+
+    @Value("${app.spatial-index.grid-size:64}")
+    private int gridSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    private SignalementRebuildLog rebuildLog;
+    private final Map<Long, Point> points = new HashMap<>();
+    private final List<Point> outside = new ArrayList<>();
+    private List<Point>[] cells;
+
+    private double minLat;
+    private double maxLat;
+    private double minLng;
+    private double maxLng;
+    private double cellLat;
+    private double cellLng;
+
+    private record Point(Long id, double latitude, double longitude, SignalementSnapshot snapshot, int cell) {
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void initGrid() {
+        MapConfigResponse.BoundsDto bounds = mapService.getMapConfig().getBounds();
+        minLat = bounds.getSouthLat();
+        maxLat = bounds.getNorthLat();
+        minLng = bounds.getWestLng();
+        maxLng = bounds.getEastLng();
+        cellLat = (maxLat - minLat) / gridSize;
+        cellLng = (maxLng - minLng) / gridSize;
+
+        cells = new List[gridSize * gridSize];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new ArrayList<>();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        rebuild();
+    }
+
+    /**
+     * Reconstruit l'index à partir de la base locale.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            SignalementRebuildLog changes = new SignalementRebuildLog();
+            setRebuildLog(changes);
+            try {
+                List<SignalementSnapshot> actifs = signalementRepository.findActiveSnapshots();
+
+                int count;
+                lock.writeLock().lock();
+                try {
+                    points.clear();
+                    outside.clear();
+                    for (List<Point> cell : cells) {
+                        cell.clear();
+                    }
+                    Collection<SignalementSnapshot> merged = changes.merge(actifs);
+                    for (SignalementSnapshot s : merged) {
+                        add(s);
+                    }
+                    count = merged.size();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                log.info("Index spatial des signalements construit ({} signalements)", count);
+            } finally {
+                setRebuildLog(null);
+            }
+        }
+    }
+
+    private void setRebuildLog(SignalementRebuildLog changes) {
+        lock.writeLock().lock();
+        try {
+            rebuildLog = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSignalementChange(SignalementSnapshot before, SignalementSnapshot after) {
+        Long id = after != null ? after.id() : before != null ? before.id() : null;
+        if (id == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (rebuildLog != null) {
+                rebuildLog.record(before, after);
+            }
+            remove(id);
+            if (after != null && after.active()) {
+                add(after);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Signalements actifs dans la zone (bornes incluses).
+     */
+    public List<SignalementLocationResponse> query(double qMinLat, double qMaxLat, double qMinLng, double qMaxLng) {
+        return search(qMinLat, qMaxLat, qMinLng, qMaxLng, SignalementSpatialIndex::toLocation);
+    }
+
+    /**
+     * État complet des signalements actifs dans la zone (bornes incluses).
+     */
+    public List<SignalementSnapshot> querySnapshots(double qMinLat, double qMaxLat, double qMinLng, double qMaxLng) {
+        return search(qMinLat, qMaxLat, qMinLng, qMaxLng, Function.identity());
+    }
+
+    private <T> List<T> search(double qMinLat, double qMaxLat, double qMinLng, double qMaxLng,
+                               Function<SignalementSnapshot, T> mapper) {
+        List<T> result = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            double fromLat = Math.max(qMinLat, minLat);
+            double toLat = Math.min(qMaxLat, maxLat);
+            double fromLng = Math.max(qMinLng, minLng);
+            double toLng = Math.min(qMaxLng, maxLng);
+
+            if (fromLat <= toLat && fromLng <= toLng) {
+                int row0 = row(fromLat);
+                int row1 = row(toLat);
+                int col0 = col(fromLng);
+                int col1 = col(toLng);
+                for (int r = row0; r <= row1; r++) {
+                    for (int c = col0; c <= col1; c++) {
+                        collect(cells[r * gridSize + c], qMinLat, qMaxLat, qMinLng, qMaxLng, mapper, result);
+                    }
+                }
+            }
+            collect(outside, qMinLat, qMaxLat, qMinLng, qMaxLng, mapper, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Ids des signalements actifs les plus proches du point, du plus proche au plus éloigné,
+     * limités au rayon (en mètres) s'il est fourni.
+     */
+    public List<Long> nearest(double lat, double lng, Double radiusMeters, int limit) {
+        List<SignalementLocationResponse> candidates;
+        if (radiusMeters != null) {
+            double dLat = radiusMeters / METERS_PER_DEGREE;
+            double dLng = radiusMeters / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(lat)), 1e-6));
+            candidates = query(lat - dLat, lat + dLat, lng - dLng, lng + dLng);
+        } else {
+            candidates = query(-90, 90, -180, 180);
+        }
+
+        return candidates.stream()
+                .map(p -> Map.entry(p.getId(), distanceMeters(lat, lng, p.getLatitude(), p.getLongitude())))
+                .filter(e -> radiusMeters == null || e.getValue() <= radiusMeters)
+                .sorted(Map.Entry.comparingByValue())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Distance orthodromique (formule de haversine).
+     */
+    private static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+    }
+
+    private <T> void collect(List<Point> candidates, double qMinLat, double qMaxLat, double qMinLng, double qMaxLng,
+                             Function<SignalementSnapshot, T> mapper, List<T> result) {
+        for (Point p : candidates) {
+            if (p.latitude() >= qMinLat && p.latitude() <= qMaxLat
+                    && p.longitude() >= qMinLng && p.longitude() <= qMaxLng) {
+                result.add(mapper.apply(p.snapshot()));
+            }
+        }
+    }
+
+    private static SignalementLocationResponse toLocation(SignalementSnapshot s) {
+        return SignalementLocationResponse.builder()
+                .id(s.id())
+                .latitude(s.latitude())
+                .longitude(s.longitude())
+                .statut(s.statut())
+                .build();
+    }
+
+    private void add(SignalementSnapshot s) {
+        if (s.id() == null || s.latitude() == null || s.longitude() == null) {
+            return;
+        }
+        double lat = s.latitude();
+        double lng = s.longitude();
+        boolean inGrid = lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+        int cell = inGrid ? row(lat) * gridSize + col(lng) : -1;
+
+        Point point = new Point(s.id(), lat, lng, s, cell);
+        points.put(s.id(), point);
+        (inGrid ? cells[cell] : outside).add(point);
+    }
+
+    private void remove(Long id) {
+        Point previous = points.remove(id);
+        if (previous != null) {
+            (previous.cell() >= 0 ? cells[previous.cell()] : outside).remove(previous);
+        }
+    }
+
+    private int row(double lat) {
+        return Math.min(gridSize - 1, (int) ((lat - minLat) / cellLat));
+    }
+
+    private int col(double lng) {
+        return Math.min(gridSize - 1, (int) ((lng - minLng) / cellLng));
+    }
+}
@@ -0,0 +1,217 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.dto.SignalementStatsResponse;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import com.road.project.road_back.signalement.repository.SignalementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Statistiques des signalements maintenues de façon incrémentale.
+ *
+ * Chaque création, modification ou suppression applique un delta (retrait de l'ancien
+ * état, ajout du nouveau) ; la lecture renvoie un instantané déjà calculé.
+ * Une reconstruction complète depuis la base est exécutée au démarrage puis
+ * périodiquement pour corriger une éventuelle dérive ; les modifications reçues
+ * pendant la lecture y sont réappliquées ({@link SignalementRebuildLog}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementStatsAggregator implements SignalementChangeListener {
+
+    private final SignalementRepository signalementRepository;
+
+    private final Object lock = new Object();
+    private final Object rebuildLock = new Object();
+    private Totals totals = new Totals();
+    private SignalementRebuildLog rebuildLog;
+    private volatile SignalementStatsResponse snapshot;
+
+    @Override
+    public void onSignalementChange(SignalementSnapshot before, SignalementSnapshot after) {
+        synchronized (lock) {
+            if (rebuildLog != null) {
+                rebuildLog.record(before, after);
+            }
+            totals.apply(before, -1);
+            totals.apply(after, 1);
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Retourne l'instantané courant des statistiques.
+     */
+    public SignalementStatsResponse getStats() {
+        SignalementStatsResponse current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (snapshot == null) {
+                snapshot = totals.toResponse();
+            }
+            return snapshot;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        rebuild();
+    }
+
+    /**
+     * Reconstruit les statistiques à partir de la base locale.
+     */
+    @Scheduled(cron = "${app.stats.rebuild-cron:0 0 3 * * *}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            SignalementRebuildLog changes = new SignalementRebuildLog();
+            synchronized (lock) {
+                rebuildLog = changes;
+            }
+            try {
+                List<SignalementSnapshot> actifs = signalementRepository.findActiveSnapshots();
+
+                int count;
+                synchronized (lock) {
+                    Totals rebuilt = new Totals();
+                    Collection<SignalementSnapshot> merged = changes.merge(actifs);
+                    for (SignalementSnapshot s : merged) {
+                        rebuilt.apply(s, 1);
+                    }
+                    count = merged.size();
+                    totals = rebuilt;
+                    snapshot = null;
+                }
+                log.info("Statistiques des signalements reconstruites ({} signalements actifs)", count);
+            } finally {
+                synchronized (lock) {
+                    rebuildLog = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compteurs et sommes sur les signalements actifs.
+     */
+    private static class Totals {
+        private long total;
+        private final Map<StatutSignalement, Long> parStatut = new EnumMap<>(StatutSignalement.class);
+        private double surfaceTotale;
+        private BigDecimal budgetTotal = BigDecimal.ZERO;
+        private long sommeAvancement;
+        private long nombreAvancement;
+        private final Map<String, Long> parEntreprise = new HashMap<>();
+        private final DurationTotals nouveauAEnCours = new DurationTotals();
+        private final DurationTotals enCoursATermine = new DurationTotals();
+        private final DurationTotals nouveauATermine = new DurationTotals();
+
+        void apply(SignalementSnapshot s, int sign) {
+            if (s == null || !s.active()) {
+                return;
+            }
+
+            total += sign;
+            if (s.statut() != null) {
+                parStatut.merge(s.statut(), (long) sign, Long::sum);
+            }
+            if (s.surfaceImpactee() != null) {
+                surfaceTotale += sign * s.surfaceImpactee();
+            }
+            if (s.budget() != null) {
+                budgetTotal = sign > 0 ? budgetTotal.add(s.budget()) : budgetTotal.subtract(s.budget());
+            }
+            if (s.pourcentageAvancement() != null) {
+                sommeAvancement += (long) sign * s.pourcentageAvancement();
+                nombreAvancement += sign;
+            }
+            if (s.entrepriseResponsable() != null) {
+                parEntreprise.merge(s.entrepriseResponsable(), (long) sign, Long::sum);
+                parEntreprise.remove(s.entrepriseResponsable(), 0L);
+            }
+
+            nouveauAEnCours.apply(s.dateNouveau(), s.dateEnCours(), sign);
+            enCoursATermine.apply(s.dateEnCours(), s.dateTermine(), sign);
+            nouveauATermine.apply(s.dateNouveau(), s.dateTermine(), sign);
+        }
+
+        SignalementStatsResponse toResponse() {
+            long nouveaux = parStatut.getOrDefault(StatutSignalement.NOUVEAU, 0L);
+            long enCours = parStatut.getOrDefault(StatutSignalement.EN_COURS, 0L);
+            long termines = parStatut.getOrDefault(StatutSignalement.TERMINE, 0L);
+
+            Map<String, Long> statuts = new HashMap<>();
+            statuts.put("NOUVEAU", nouveaux);
+            statuts.put("EN_COURS", enCours);
+            statuts.put("TERMINE", termines);
+
+            List<SignalementStatsResponse.EntrepriseStats> entreprises = parEntreprise.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .map(e -> SignalementStatsResponse.EntrepriseStats.builder()
+                            .nom(e.getKey())
+                            .count(e.getValue())
+                            .build())
+                    .collect(Collectors.toList());
+
+            SignalementStatsResponse.TraitementStats traitement = SignalementStatsResponse.TraitementStats.builder()
+                    .tempsNouveauAEnCours(nouveauAEnCours.moyenne())
+                    .tempsEnCoursATermine(enCoursATermine.moyenne())
+                    .tempsTotal(nouveauATermine.moyenne())
+                    .nombreTravauxTermines(nouveauATermine.count)
+                    .nombreTravauxEnCours(enCoursATermine.count)
+                    .nombreNouveauxTraitements(nouveauAEnCours.count)
+                    .build();
+
+            return SignalementStatsResponse.builder()
+                    .totalSignalements(total)
+                    .nouveaux(nouveaux)
+                    .enCours(enCours)
+                    .termines(termines)
+                    .surfaceTotale(surfaceTotale)
+                    .budgetTotal(budgetTotal)
+                    .tauxAvancementMoyen(nombreAvancement > 0 ? (double) sommeAvancement / nombreAvancement : 0.0)
+                    .parStatut(statuts)
+                    .parEntreprise(entreprises)
+                    .traitement(traitement)
+                    .build();
+        }
+    }
+
+    /**
+     * Somme des durées (en heures entières) et nombre de signalements pour une paire de statuts.
+     */
+    private static class DurationTotals {
+        private long heures;
+        private long count;
+
+        void apply(LocalDateTime debut, LocalDateTime fin, int sign) {
+            if (debut == null || fin == null) {
+                return;
+            }
+            heures += sign * Duration.between(debut, fin).toHours();
+            count += sign;
+        }
+
+        Double moyenne() {
+            return count > 0 ? (double) heures / count : 0.0;
+        }
+    }
+}
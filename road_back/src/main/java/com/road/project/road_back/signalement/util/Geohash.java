@@ -0,0 +1,118 @@
+package com.road.project.road_back.signalement.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Utilitaire d'encodage geohash (base32) et de couverture d'une zone rectangulaire.
+ *
+ * Utilisé pour indexer les signalements dans Firestore : une zone géographique
+ * est couverte par un petit nombre de préfixes, chacun interrogé par une requête
+ * d'intervalle sur le champ "geohash".
+ */
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /**
+     * Précision stockée dans Firestore (~1,2 m x 0,6 m).
+     */
+    public static final int STORAGE_PRECISION = 10;
+
+    private Geohash() {
+    }
+
+    /**
+     * Encode une position en geohash de la précision demandée.
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Retourne l'ensemble des préfixes geohash couvrant la zone, en choisissant
+     * la précision la plus fine qui reste sous {@code maxCells} cellules.
+     */
+    public static Set<String> coveringPrefixes(double minLat, double maxLat,
+                                               double minLng, double maxLng, int maxCells) {
+        int precision = 1;
+        for (int p = STORAGE_PRECISION; p >= 1; p--) {
+            if (cellCount(minLat, maxLat, minLng, maxLng, p) <= maxCells) {
+                precision = p;
+                break;
+            }
+        }
+
+        double cellHeight = cellHeight(precision);
+        double cellWidth = cellWidth(precision);
+
+        long latStart = (long) Math.floor((minLat + 90) / cellHeight);
+        long latEnd = (long) Math.floor((maxLat + 90) / cellHeight);
+        long lngStart = (long) Math.floor((minLng + 180) / cellWidth);
+        long lngEnd = (long) Math.floor((maxLng + 180) / cellWidth);
+
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (long i = latStart; i <= latEnd; i++) {
+            double lat = Math.min(90, (i + 0.5) * cellHeight - 90);
+            for (long j = lngStart; j <= lngEnd; j++) {
+                double lng = Math.min(180, (j + 0.5) * cellWidth - 180);
+                prefixes.add(encode(lat, lng, precision));
+            }
+        }
+        return prefixes;
+    }
+
+    private static long cellCount(double minLat, double maxLat, double minLng, double maxLng, int precision) {
+        double cellHeight = cellHeight(precision);
+        double cellWidth = cellWidth(precision);
+        long rows = (long) Math.floor((maxLat + 90) / cellHeight) - (long) Math.floor((minLat + 90) / cellHeight) + 1;
+        long cols = (long) Math.floor((maxLng + 180) / cellWidth) - (long) Math.floor((minLng + 180) / cellWidth) + 1;
+        return rows * cols;
+    }
+
+    private static double cellHeight(int precision) {
+        int latBits = (5 * precision) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    private static double cellWidth(int precision) {
+        int lngBits = (5 * precision + 1) / 2;
+        return 360.0 / (1L << lngBits);
+    }
+}
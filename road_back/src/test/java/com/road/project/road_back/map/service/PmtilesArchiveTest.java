@@ -0,0 +1,209 @@
+package com.road.project.road_back.map.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lecture d'une petite archive PMTiles v3 générée : répertoire racine, répertoire
+ * feuille et entrée couvrant plusieurs tuiles identiques.
+ */
+class PmtilesArchiveTest {
+
+    private static final byte[] TILE_Z0 = tile("z0");
+    private static final byte[] TILE_Z1_0_0 = tile("z1 0/0");
+    private static final byte[] TILE_Z1_0_1 = tile("z1 0/1");
+    private static final byte[] TILE_Z1_EST = tile("z1 est"); // 1/1 et 1/0 : ids 3 et 4 consécutifs
+    private static final byte[] TILE_Z2_3_0 = tile("z2 3/0");
+
+    @TempDir
+    Path tempDir;
+
+    private final PmtilesArchive archive = new PmtilesArchive();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        archive.close();
+    }
+
+    @Test
+    void tileIdSuitLaCourbeDeHilbert() {
+        assertEquals(0, PmtilesArchive.tileId(0, 0, 0));
+        assertEquals(1, PmtilesArchive.tileId(1, 0, 0));
+        assertEquals(2, PmtilesArchive.tileId(1, 0, 1));
+        assertEquals(3, PmtilesArchive.tileId(1, 1, 1));
+        assertEquals(4, PmtilesArchive.tileId(1, 1, 0));
+        assertEquals(5, PmtilesArchive.tileId(2, 0, 0));
+        assertEquals(20, PmtilesArchive.tileId(2, 3, 0));
+        assertEquals(21, PmtilesArchive.tileId(3, 0, 0));
+    }
+
+    @Test
+    void litLesTuilesDUneArchiveNonCompressee() throws IOException {
+        open(writeArchive(1));
+        assertTiles();
+    }
+
+    @Test
+    void litLesTuilesDUneArchiveAuxRepertoiresCompresses() throws IOException {
+        open(writeArchive(2));
+        assertTiles();
+    }
+
+    @Test
+    void ignoreUnFichierTronque() throws IOException {
+        Path file = tempDir.resolve("tronque.pmtiles");
+        Files.write(file, new byte[]{'P', 'M', 'T'});
+
+        open(file);
+
+        assertFalse(archive.isAvailable());
+        assertTrue(archive.getTile(0, 0, 0).isEmpty());
+    }
+
+    private void assertTiles() {
+        assertTrue(archive.isAvailable());
+        assertTile(TILE_Z0, 0, 0, 0);
+        assertTile(TILE_Z1_0_0, 1, 0, 0);
+        assertTile(TILE_Z1_0_1, 1, 0, 1);
+        assertTile(TILE_Z1_EST, 1, 1, 1);
+        assertTile(TILE_Z1_EST, 1, 1, 0);
+        assertTile(TILE_Z2_3_0, 2, 3, 0);
+
+        // absente du répertoire feuille, hors des bornes ou hors des zooms de l'archive
+        assertTrue(archive.getTile(2, 0, 0).isEmpty());
+        assertTrue(archive.getTile(2, 3, 3).isEmpty());
+        assertTrue(archive.getTile(1, 2, 0).isEmpty());
+        assertTrue(archive.getTile(3, 0, 0).isEmpty());
+    }
+
+    private void assertTile(byte[] expected, int z, int x, int y) {
+        Optional<ByteBuffer> tile = archive.getTile(z, x, y);
+        assertTrue(tile.isPresent(), "tuile " + z + "/" + x + "/" + y + " absente");
+        byte[] actual = new byte[tile.get().remaining()];
+        tile.get().get(actual);
+        assertArrayEquals(expected, actual, "tuile " + z + "/" + x + "/" + y);
+    }
+
+    private void open(Path file) {
+        ReflectionTestUtils.setField(archive, "pmtilesFile", file.toString());
+        archive.open();
+    }
+
+    /**
+     * Archive PNG non compressée de zooms 0 à 2 : les tuiles 0 à 4 sont dans le répertoire
+     * racine, la tuile 20 (z2 3/0) dans un répertoire feuille.
+     */
+    private Path writeArchive(int internalCompression) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        long[] offsets = new long[5];
+        byte[][] tiles = {TILE_Z0, TILE_Z1_0_0, TILE_Z1_0_1, TILE_Z1_EST, TILE_Z2_3_0};
+        for (int i = 0; i < tiles.length; i++) {
+            offsets[i] = data.size();
+            data.write(tiles[i]);
+        }
+
+        byte[] leaf = compress(directory(
+                new long[]{20}, new long[]{1},
+                new long[]{TILE_Z2_3_0.length}, new long[]{offsets[4] + 1}), internalCompression);
+        // offset 0 : tuile contiguë à la précédente
+        byte[] root = compress(directory(
+                new long[]{0, 1, 2, 3, 5}, new long[]{1, 1, 1, 2, 0},
+                new long[]{TILE_Z0.length, TILE_Z1_0_0.length, TILE_Z1_0_1.length, TILE_Z1_EST.length, leaf.length},
+                new long[]{1, 0, 0, 0, 1}), internalCompression);
+
+        long rootOffset = 127;
+        long leafOffset = rootOffset + root.length;
+        long tileDataOffset = leafOffset + leaf.length;
+
+        ByteBuffer header = ByteBuffer.allocate(127).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("PMTiles".getBytes(StandardCharsets.US_ASCII));
+        header.put((byte) 3);
+        header.putLong(8, rootOffset);
+        header.putLong(16, root.length);
+        header.putLong(24, tileDataOffset + data.size()); // métadonnées vides
+        header.putLong(32, 0);
+        header.putLong(40, leafOffset);
+        header.putLong(48, leaf.length);
+        header.putLong(56, tileDataOffset);
+        header.putLong(64, data.size());
+        header.putLong(72, 6);
+        header.putLong(80, 5);
+        header.putLong(88, 5);
+        header.put(96, (byte) 1);
+        header.put(97, (byte) internalCompression);
+        header.put(98, (byte) 1);
+        header.put(99, (byte) 2);
+        header.put(100, (byte) 0);
+        header.put(101, (byte) 2);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(header.array());
+        file.write(root);
+        file.write(leaf);
+        data.writeTo(file);
+
+        Path path = tempDir.resolve("archive-" + internalCompression + ".pmtiles");
+        Files.write(path, file.toByteArray());
+        return path;
+    }
+
+    private static byte[] directory(long[] tileIds, long[] runLengths, long[] lengths, long[] offsets) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, tileIds.length);
+        long lastId = 0;
+        for (long tileId : tileIds) {
+            writeVarint(out, tileId - lastId);
+            lastId = tileId;
+        }
+        for (long runLength : runLengths) {
+            writeVarint(out, runLength);
+        }
+        for (long length : lengths) {
+            writeVarint(out, length);
+        }
+        for (long offset : offsets) {
+            writeVarint(out, offset);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] compress(byte[] bytes, int internalCompression) throws IOException {
+        if (internalCompression != 2) {
+            return bytes;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while (value >= 0x80) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static byte[] tile(String label) {
+        return ("\u0089PNG " + label).getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,104 @@
+package com.road.project.road_back.map.service;
+
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import com.road.project.road_back.signalement.service.SignalementSpatialIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Invalidation du cache des tuiles vectorielles : seules les tuiles de l'ancienne
+ * et de la nouvelle position sont retirées, à chaque niveau de zoom.
+ */
+class SignalementTileServiceTest {
+
+    private static final double[] ANCIENNE = {-18.90, 47.50};
+    private static final double[] NOUVELLE = {-18.95, 47.55};
+    private static final double[] AILLEURS = {-18.80, 47.45};
+
+    private final SignalementSpatialIndex index = mock(SignalementSpatialIndex.class);
+    private SignalementTileService service;
+
+    @BeforeEach
+    void setUp() {
+        when(index.querySnapshots(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of());
+        service = new SignalementTileService(index);
+        ReflectionTestUtils.setField(service, "cacheSize", 1000);
+
+        for (int z = 0; z <= SignalementTileService.MAX_ZOOM; z++) {
+            getTile(z, ANCIENNE);
+            getTile(z, NOUVELLE);
+            getTile(z, AILLEURS);
+        }
+    }
+
+    @Test
+    void deplacementRetireLesTuilesDesDeuxPositions() {
+        SignalementSnapshot before = snapshot(ANCIENNE, new BigDecimal("1000"));
+        service.onSignalementChange(before, snapshot(NOUVELLE, new BigDecimal("1000")));
+
+        for (int z = 0; z <= SignalementTileService.MAX_ZOOM; z++) {
+            String ancienne = key(z, ANCIENNE);
+            String nouvelle = key(z, NOUVELLE);
+            String ailleurs = key(z, AILLEURS);
+            assertFalse(cache().containsKey(ancienne), ancienne);
+            assertFalse(cache().containsKey(nouvelle), nouvelle);
+            if (!ailleurs.equals(ancienne) && !ailleurs.equals(nouvelle)) {
+                assertTrue(cache().containsKey(ailleurs), ailleurs);
+            }
+        }
+        // Aux zooms élevés, les trois positions sont dans des tuiles distinctes
+        assertTrue(cache().containsKey(key(SignalementTileService.MAX_ZOOM, AILLEURS)));
+    }
+
+    @Test
+    void modificationSansEffetSurLesTuiles() {
+        int cached = cache().size();
+        // Le budget n'est pas encodé dans les tuiles
+        service.onSignalementChange(snapshot(ANCIENNE, new BigDecimal("1000")), snapshot(ANCIENNE, new BigDecimal("2000")));
+        assertEquals(cached, cache().size());
+    }
+
+    private void getTile(int z, double[] position) {
+        long[] tile = tile(z, position);
+        service.getTile(z, (int) tile[0], (int) tile[1]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> cache() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(service, "cache");
+    }
+
+    private static String key(int z, double[] position) {
+        long[] tile = tile(z, position);
+        return z + "/" + tile[0] + "/" + tile[1];
+    }
+
+    /**
+     * Tuile contenant la position (formule standard des tuiles Web Mercator).
+     */
+    private static long[] tile(int z, double[] position) {
+        double n = Math.pow(2, z);
+        double latRad = Math.toRadians(position[0]);
+        long x = (long) ((position[1] + 180) / 360 * n);
+        long y = (long) ((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * n);
+        return new long[]{x, y};
+    }
+
+    private static SignalementSnapshot snapshot(double[] position, BigDecimal budget) {
+        return new SignalementSnapshot(1L, true, StatutSignalement.NOUVEAU, position[0], position[1], 2, "MOYENNE",
+                10.0, budget, 0, "Entreprise", null, null, null);
+    }
+}
@@ -0,0 +1,162 @@
+package com.road.project.road_back.map.service;
+
+import com.road.project.road_back.config.ConnectivityMonitor;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Disjoncteur et cache négatif du client de tuiles, face à un serveur de tuiles local.
+ */
+class TileUpstreamClientTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G'};
+
+    private HttpServer server;
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private TileUpstreamClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            int status = statuses.getOrDefault(path, 200);
+            if (status == 200) {
+                exchange.sendResponseHeaders(200, PNG.length);
+                exchange.getResponseBody().write(PNG);
+            } else {
+                exchange.sendResponseHeaders(status, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        client = new TileUpstreamClient(mock(ConnectivityMonitor.class));
+        ReflectionTestUtils.setField(client, "tileServerUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "failureThreshold", 3);
+        ReflectionTestUtils.setField(client, "probeInitialIntervalMs", 50L);
+        ReflectionTestUtils.setField(client, "probeMaxIntervalMs", 200L);
+        ReflectionTestUtils.setField(client, "negativeTtlSeconds", 60L);
+        client.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.stop();
+        server.stop(0);
+    }
+
+    @Test
+    void tuileServie() throws IOException {
+        assertArrayEquals(PNG, client.fetch(12, 2535, 2266));
+        assertTrue(client.isAvailable());
+    }
+
+    @Test
+    void disjoncteurOuvertApresLeSeuilDEchecs() throws IOException {
+        server.stop(0); // connexions refusées
+
+        for (int i = 0; i < 3; i++) {
+            int y = i;
+            assertTrue(client.isAvailable(), "ouvert après " + i + " échecs");
+            assertThrows(IOException.class, () -> client.fetch(12, 2535, y));
+        }
+
+        assertFalse(client.isAvailable());
+        // Refus immédiat, sans requête
+        assertNull(client.fetch(12, 2535, 10));
+    }
+
+    @Test
+    void tuileAbsenteDemandeeUneSeuleFoisPendantLeTtl() throws IOException {
+        statuses.put("/12/2535/2266.png", 404);
+
+        assertNull(client.fetch(12, 2535, 2266));
+        assertNull(client.fetch(12, 2535, 2266));
+
+        assertEquals(1, hits.get("/12/2535/2266.png").get());
+        assertTrue(client.isAvailable());
+    }
+
+    @Test
+    void tuileAbsenteRedemandeeApresLeTtl() throws Exception {
+        ReflectionTestUtils.setField(client, "negativeTtlSeconds", 1L);
+        statuses.put("/12/2535/2266.png", 404);
+
+        assertNull(client.fetch(12, 2535, 2266));
+        Thread.sleep(1100);
+        assertNull(client.fetch(12, 2535, 2266));
+
+        assertEquals(2, hits.get("/12/2535/2266.png").get());
+    }
+
+    @Test
+    void erreurServeurNonMemorisee() throws IOException {
+        statuses.put("/12/2535/2266.png", 503);
+
+        assertNull(client.fetch(12, 2535, 2266));
+        assertNull(client.fetch(12, 2535, 2266));
+
+        assertEquals(2, hits.get("/12/2535/2266.png").get());
+        assertTrue(client.isAvailable());
+
+        // 503 et 429 comptent comme des échecs : le troisième ouvre le disjoncteur
+        statuses.put("/12/2535/2267.png", 429);
+        assertNull(client.fetch(12, 2535, 2267));
+        assertFalse(client.isAvailable());
+    }
+
+    @Test
+    void laSondeRefermeLeDisjoncteurEtReveilleLesAttentes() throws Exception {
+        statuses.put("/0/0/0.png", 503);
+        statuses.put("/12/2535/2266.png", 503);
+        for (int i = 0; i < 3; i++) {
+            client.fetch(12, 2535, 2266);
+        }
+        assertFalse(client.isAvailable());
+
+        Thread waiting = new Thread(() -> {
+            try {
+                client.awaitAvailable();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+        // Deux sondes en échec : la sonde se replanifie sans refermer le disjoncteur
+        for (int i = 0; i < 100 && hits.getOrDefault("/0/0/0.png", new AtomicInteger()).get() < 2; i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(hits.get("/0/0/0.png").get() >= 2, "sonde replanifiée");
+        assertTrue(waiting.isAlive());
+        assertFalse(client.isAvailable());
+
+        statuses.remove("/0/0/0.png");
+        waiting.join(5000);
+
+        assertFalse(waiting.isAlive());
+        assertTrue(client.isAvailable());
+        statuses.remove("/12/2535/2266.png");
+        assertArrayEquals(PNG, client.fetch(12, 2535, 2266));
+    }
+}
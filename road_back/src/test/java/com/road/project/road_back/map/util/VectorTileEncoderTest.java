@@ -0,0 +1,166 @@
+package com.road.project.road_back.map.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Décodage champ par champ (protobuf) des tuiles produites, selon la spécification MVT 2.1.
+ */
+class VectorTileEncoderTest {
+
+    @Test
+    void tuileSansPointVide() {
+        assertEquals(0, new VectorTileEncoder(3, 1, 2).encode().length);
+    }
+
+    @Test
+    void enTeteDeCouche() {
+        VectorTileEncoder encoder = new VectorTileEncoder(0, 0, 0);
+        encoder.addPoint("signalements", 1, 0, 0, Map.of());
+
+        List<Field> tile = parse(encoder.encode());
+        assertEquals(1, tile.size());
+        assertEquals(3, tile.get(0).number());
+
+        List<Field> layer = parse(tile.get(0).bytes());
+        assertEquals(2, single(layer, 15).varint());
+        assertEquals("signalements", single(layer, 1).string());
+        assertEquals(4096, single(layer, 5).varint());
+        assertEquals(1, all(layer, 2).size());
+    }
+
+    @Test
+    void pointAuCentreDuMonde() {
+        // (0, 0) est au centre de la tuile 0/0/0 : 2048, 2048
+        List<Field> feature = firstFeature(0, 0, 0, 0, 0);
+        assertEquals(1, single(feature, 3).varint()); // POINT
+        assertEquals(List.of(9L, 4096L, 4096L), varints(single(feature, 4).bytes()));
+    }
+
+    @Test
+    void pointEnCoordonneesNegativesDeLaTuile() {
+        // Tuile 1/1/0 (nord-est) : lng -90 est à -2048 px à gauche, lat 0 à 4096 px en bas
+        List<Field> feature = firstFeature(1, 1, 0, 0, -90);
+        assertEquals(List.of(9L, 4095L, 8192L), varints(single(feature, 4).bytes()));
+    }
+
+    @Test
+    void identifiantEtAttributs() {
+        VectorTileEncoder encoder = new VectorTileEncoder(0, 0, 0);
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("statut", "NOUVEAU");
+        first.put("niveau", 3);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("statut", "NOUVEAU");
+        second.put("niveau", 3L);
+        second.put("priorite", null);
+        second.put("id", 300L);
+        encoder.addPoint("signalements", 1, 0, 0, first);
+        encoder.addPoint("signalements", 300, 0, 0, second);
+
+        List<Field> layer = parse(parse(encoder.encode()).get(0).bytes());
+
+        // Clés et valeurs partagées entre les entités, attributs null ignorés
+        assertEquals(List.of("statut", "niveau", "id"), all(layer, 3).stream().map(Field::string).toList());
+        List<Field> values = all(layer, 4);
+        assertEquals(3, values.size());
+        assertEquals("NOUVEAU", single(parse(values.get(0).bytes()), 1).string());
+        assertEquals(3, single(parse(values.get(1).bytes()), 4).varint()); // int_value
+        assertEquals(300, single(parse(values.get(2).bytes()), 4).varint());
+
+        List<Field> features = all(layer, 2);
+        List<Field> f1 = parse(features.get(0).bytes());
+        List<Field> f2 = parse(features.get(1).bytes());
+        assertEquals(1, single(f1, 1).varint());
+        assertEquals(300, single(f2, 1).varint());
+        assertEquals(List.of(0L, 0L, 1L, 1L), varints(single(f1, 2).bytes()));
+        assertEquals(List.of(0L, 0L, 1L, 1L, 2L, 2L), varints(single(f2, 2).bytes()));
+    }
+
+    @Test
+    void varintSurPlusieursOctets() {
+        VectorTileEncoder encoder = new VectorTileEncoder(0, 0, 0);
+        encoder.addPoint("signalements", 300, 0, 0, Map.of());
+        List<Field> layer = parse(parse(encoder.encode()).get(0).bytes());
+        byte[] feature = all(layer, 2).get(0).bytes();
+        // Champ 1 (varint) puis 300 = 0xAC 0x02
+        assertArrayEquals(new byte[]{0x08, (byte) 0xAC, 0x02}, Arrays.copyOf(feature, 3));
+    }
+
+    private static List<Field> firstFeature(int z, int x, int y, double lat, double lng) {
+        VectorTileEncoder encoder = new VectorTileEncoder(z, x, y);
+        encoder.addPoint("signalements", 1, lat, lng, Map.of());
+        List<Field> layer = parse(parse(encoder.encode()).get(0).bytes());
+        return parse(all(layer, 2).get(0).bytes());
+    }
+
+    /**
+     * Champ protobuf : valeur varint (type 0) ou contenu délimité (type 2).
+     */
+    private record Field(int number, long varint, byte[] bytes) {
+        String string() {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<Field> parse(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        List<Field> fields = new ArrayList<>();
+        while (in.hasRemaining()) {
+            long tag = readVarint(in);
+            int number = (int) (tag >>> 3);
+            int wireType = (int) (tag & 7);
+            if (wireType == 0) {
+                fields.add(new Field(number, readVarint(in), null));
+            } else if (wireType == 2) {
+                byte[] content = new byte[(int) readVarint(in)];
+                in.get(content);
+                fields.add(new Field(number, 0, content));
+            } else {
+                throw new AssertionError("Type de champ inattendu: " + wireType);
+            }
+        }
+        return fields;
+    }
+
+    private static List<Long> varints(byte[] packed) {
+        ByteBuffer in = ByteBuffer.wrap(packed);
+        List<Long> values = new ArrayList<>();
+        while (in.hasRemaining()) {
+            values.add(readVarint(in));
+        }
+        return values;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static List<Field> all(List<Field> fields, int number) {
+        return fields.stream().filter(f -> f.number() == number).toList();
+    }
+
+    private static Field single(List<Field> fields, int number) {
+        List<Field> matching = all(fields, number);
+        assertEquals(1, matching.size(), "champ " + number);
+        return matching.get(0);
+    }
+}
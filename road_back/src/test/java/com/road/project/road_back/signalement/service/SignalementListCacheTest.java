@@ -0,0 +1,129 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.signalement.dto.SignalementResponse;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Invalidation des pages de la liste : versions globale et par statut, modification
+ * validée pendant le calcul d'une page, invalidation complète en fin de transaction.
+ */
+class SignalementListCacheTest {
+
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    private final SignalementListCache cache = new SignalementListCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void pageEnCacheTantQueRienNeChange() {
+        get(null);
+        get(null);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void changementDeStatutInvalideLesListesConcernees() {
+        for (StatutSignalement statut : new StatutSignalement[]{null, StatutSignalement.NOUVEAU,
+                StatutSignalement.EN_COURS, StatutSignalement.TERMINE}) {
+            get(statut);
+        }
+
+        cache.onSignalementChange(snapshot(StatutSignalement.NOUVEAU), snapshot(StatutSignalement.EN_COURS));
+
+        assertReloaded(null, true);
+        assertReloaded(StatutSignalement.NOUVEAU, true);
+        assertReloaded(StatutSignalement.EN_COURS, true);
+        assertReloaded(StatutSignalement.TERMINE, false);
+    }
+
+    @Test
+    void creationInvalideLaListeCompleteEtSonStatut() {
+        get(null);
+        get(StatutSignalement.NOUVEAU);
+        get(StatutSignalement.TERMINE);
+
+        cache.onSignalementChange(null, snapshot(StatutSignalement.NOUVEAU));
+
+        assertReloaded(null, true);
+        assertReloaded(StatutSignalement.NOUVEAU, true);
+        assertReloaded(StatutSignalement.TERMINE, false);
+    }
+
+    @Test
+    void modificationPendantLeCalculNeLaissePasDePageObsolete() {
+        // La modification est validée pendant que la page est lue en base
+        cache.get(StatutSignalement.NOUVEAU, PAGE, () -> {
+            loads.incrementAndGet();
+            cache.onSignalementChange(snapshot(StatutSignalement.NOUVEAU), snapshot(StatutSignalement.TERMINE));
+            return new PageImpl<>(List.of());
+        });
+
+        assertReloaded(StatutSignalement.NOUVEAU, true);
+        assertReloaded(StatutSignalement.NOUVEAU, false);
+    }
+
+    @Test
+    void invalidationCompleteRepeteeEnFinDeTransaction() {
+        get(StatutSignalement.TERMINE);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidateAll();
+        // Page relue avant la validation : elle peut encore contenir l'ancien état
+        assertReloaded(StatutSignalement.TERMINE, true);
+        assertReloaded(StatutSignalement.TERMINE, false);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        assertReloaded(StatutSignalement.TERMINE, true);
+        assertReloaded(null, true);
+    }
+
+    private void assertReloaded(StatutSignalement statut, boolean reloaded) {
+        int before = loads.get();
+        get(statut);
+        assertEquals(reloaded ? before + 1 : before, loads.get(), "liste " + statut);
+    }
+
+    private Page<SignalementResponse> get(StatutSignalement statut) {
+        return cache.get(statut, PAGE, () -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(List.of());
+        });
+    }
+
+    private static SignalementSnapshot snapshot(StatutSignalement statut) {
+        return new SignalementSnapshot(1L, true, statut, -18.9, 47.5, 1, "MOYENNE", 10.0,
+                new BigDecimal("1000"), 0, null, null, null, null);
+    }
+}
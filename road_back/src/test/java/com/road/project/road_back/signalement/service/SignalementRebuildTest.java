@@ -0,0 +1,138 @@
+package com.road.project.road_back.signalement.service;
+
+import com.road.project.road_back.map.dto.MapConfigResponse;
+import com.road.project.road_back.map.service.MapService;
+import com.road.project.road_back.signalement.dto.SignalementClusterResponse;
+import com.road.project.road_back.signalement.dto.SignalementStatsResponse;
+import com.road.project.road_back.signalement.entity.SignalementSnapshot;
+import com.road.project.road_back.signalement.entity.StatutSignalement;
+import com.road.project.road_back.signalement.repository.SignalementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconstructions des vues dérivées pendant lesquelles des modifications sont validées :
+ * une création, la modification d'une ligne déjà lue et une suppression logique arrivent
+ * pendant {@code findActiveSnapshots}.
+ */
+class SignalementRebuildTest {
+
+    // Dans l'emprise de la carte (Antananarivo)
+    private static final SignalementSnapshot A = snapshot(1L, StatutSignalement.NOUVEAU, -18.90, 47.50);
+    private static final SignalementSnapshot B = snapshot(2L, StatutSignalement.EN_COURS, -18.95, 47.55);
+    private static final SignalementSnapshot A_TERMINE = snapshot(1L, StatutSignalement.TERMINE, -18.90, 47.50);
+    private static final SignalementSnapshot C = snapshot(3L, StatutSignalement.NOUVEAU, -18.85, 47.45);
+
+    private final SignalementRepository repository = mock(SignalementRepository.class);
+
+    private SignalementStatsAggregator stats;
+    private SignalementSpatialIndex spatialIndex;
+    private SignalementClusterIndex clusterIndex;
+
+    @BeforeEach
+    void setUp() {
+        MapService mapService = mock(MapService.class);
+        when(mapService.getMapConfig()).thenReturn(MapConfigResponse.builder()
+                .bounds(MapConfigResponse.BoundsDto.builder()
+                        .northLat(-18.75).southLat(-19.05).eastLng(47.65).westLng(47.40)
+                        .build())
+                .build());
+
+        stats = new SignalementStatsAggregator(repository);
+        spatialIndex = new SignalementSpatialIndex(repository, mapService);
+        ReflectionTestUtils.setField(spatialIndex, "gridSize", 8);
+        spatialIndex.initGrid();
+        clusterIndex = new SignalementClusterIndex(repository);
+        ReflectionTestUtils.setField(clusterIndex, "cellSizePx", 64);
+    }
+
+    @Test
+    void mergeGardeLeDernierEtatParId() {
+        SignalementRebuildLog log = new SignalementRebuildLog();
+        log.record(null, C);
+        log.record(A, A_TERMINE);
+        log.record(B, B.deactivated());
+        log.record(C, C.deactivated());
+        log.record(C.deactivated(), C);
+
+        Map<Long, StatutSignalement> merged = log.merge(List.of(A, B)).stream()
+                .collect(Collectors.toMap(SignalementSnapshot::id, SignalementSnapshot::statut));
+
+        assertEquals(Map.of(1L, StatutSignalement.TERMINE, 3L, StatutSignalement.NOUVEAU), merged);
+    }
+
+    @Test
+    void modificationsNonVuesParLaLecture() {
+        // La lecture renvoie l'état d'avant les modifications
+        rebuildAll(List.of(A, B));
+        assertRebuilt();
+    }
+
+    @Test
+    void modificationsDejaVuesParLaLecture() {
+        // La lecture voit déjà les modifications notifiées pendant qu'elle s'exécute
+        rebuildAll(List.of(A_TERMINE, C));
+        assertRebuilt();
+    }
+
+    private void rebuildAll(List<SignalementSnapshot> read) {
+        rebuild(stats, stats::rebuild, read);
+        rebuild(spatialIndex, spatialIndex::rebuild, read);
+        rebuild(clusterIndex, clusterIndex::rebuild, read);
+    }
+
+    /**
+     * Construit la vue sur A et B, puis la reconstruit pendant que les modifications sont notifiées.
+     */
+    private void rebuild(SignalementChangeListener listener, Runnable rebuild, List<SignalementSnapshot> read) {
+        doReturn(List.of(A, B)).when(repository).findActiveSnapshots();
+        rebuild.run();
+
+        doAnswer(invocation -> {
+            listener.onSignalementChange(null, C);
+            listener.onSignalementChange(A, A_TERMINE);
+            listener.onSignalementChange(B, B.deactivated());
+            return read;
+        }).when(repository).findActiveSnapshots();
+        rebuild.run();
+    }
+
+    private void assertRebuilt() {
+        SignalementStatsResponse response = stats.getStats();
+        assertEquals(2, response.getTotalSignalements());
+        assertEquals(1, response.getNouveaux());
+        assertEquals(0, response.getEnCours());
+        assertEquals(1, response.getTermines());
+        assertEquals(new BigDecimal("2000"), response.getBudgetTotal());
+
+        Set<Long> ids = spatialIndex.querySnapshots(-19.05, -18.75, 47.40, 47.65).stream()
+                .map(SignalementSnapshot::id)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(1L, 3L), ids);
+
+        List<SignalementClusterResponse> clusters = clusterIndex.query(-90, 90, -180, 180, 0);
+        assertEquals(2, clusters.stream().mapToLong(SignalementClusterResponse::getCount).sum());
+        assertEquals(Map.of(StatutSignalement.NOUVEAU, 1L, StatutSignalement.TERMINE, 1L),
+                clusters.stream()
+                        .flatMap(c -> c.getParStatut().entrySet().stream())
+                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, Long::sum)));
+    }
+
+    private static SignalementSnapshot snapshot(Long id, StatutSignalement statut, double lat, double lng) {
+        return new SignalementSnapshot(id, true, statut, lat, lng, 1, "MOYENNE", 10.0,
+                new BigDecimal("1000"), 0, "Entreprise", null, null, null);
+    }
+}
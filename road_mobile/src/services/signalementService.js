@@ -19,6 +19,7 @@ import {
   serverTimestamp,
   Timestamp
 } from 'firebase/firestore';
+import { encodeGeohash } from '@/utils/helpers';
 
 const SIGNALEMENTS_COLLECTION = 'signalements';
 const CONFIGURATIONS_COLLECTION = 'configurations';
@@ -304,6 +305,7 @@ export const signalementService = {
         description: data.description || '',
         latitude: parseFloat(data.latitude),
         longitude: parseFloat(data.longitude),
+        geohash: encodeGeohash(parseFloat(data.latitude), parseFloat(data.longitude)),
         adresse: data.adresse || '',
         statut: statut,
         surfaceImpactee: surface,
@@ -372,6 +374,13 @@ export const signalementService = {
       if (data.description !== undefined) updateData.description = data.description;
       if (data.latitude !== undefined) updateData.latitude = parseFloat(data.latitude);
       if (data.longitude !== undefined) updateData.longitude = parseFloat(data.longitude);
+      if (updateData.latitude !== undefined || updateData.longitude !== undefined) {
+        // Le geohash suit la position (requêtes par zone du backend)
+        updateData.geohash = encodeGeohash(
+          updateData.latitude ?? existingData.latitude,
+          updateData.longitude ?? existingData.longitude
+        );
+      }
       if (data.adresse !== undefined) updateData.adresse = data.adresse;
       if (data.entrepriseResponsable !== undefined) updateData.entrepriseResponsable = data.entrepriseResponsable;
       if (data.dateDebut !== undefined) updateData.dateDebut = data.dateDebut;
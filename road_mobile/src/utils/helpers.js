@@ -304,3 +304,52 @@ export const debounce = (func, wait = 300) => {
     timeout = setTimeout(later, wait);
   };
 };
+
+const GEOHASH_BASE32 = '0123456789bcdefghjkmnpqrstuvwxyz';
+
+/**
+ * Encode une position en geohash (même encodage que le backend, précision 10 par défaut)
+ * Le backend s'appuie sur ce champ pour ses requêtes par zone
+ * @param {number} latitude - Latitude
+ * @param {number} longitude - Longitude
+ * @param {number} precision - Nombre de caractères
+ * @returns {string} Geohash
+ */
+export const encodeGeohash = (latitude, longitude, precision = 10) => {
+  let minLat = -90, maxLat = 90;
+  let minLng = -180, maxLng = 180;
+  let hash = '';
+  let evenBit = true;
+  let bit = 0;
+  let ch = 0;
+
+  while (hash.length < precision) {
+    if (evenBit) {
+      const mid = (minLng + maxLng) / 2;
+      if (longitude >= mid) {
+        ch = (ch << 1) | 1;
+        minLng = mid;
+      } else {
+        ch = ch << 1;
+        maxLng = mid;
+      }
+    } else {
+      const mid = (minLat + maxLat) / 2;
+      if (latitude >= mid) {
+        ch = (ch << 1) | 1;
+        minLat = mid;
+      } else {
+        ch = ch << 1;
+        maxLat = mid;
+      }
+    }
+    evenBit = !evenBit;
+
+    if (++bit === 5) {
+      hash += GEOHASH_BASE32[ch];
+      bit = 0;
+      ch = 0;
+    }
+  }
+  return hash;
+};